@@ -0,0 +1,52 @@
+package com.jojoldu.book.springboot;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.lang.reflect.Field;
+
+/**
+ * 벤치마크용 스프링 컨텍스트, 실제 DB 대신 MySQL 모드의 H2 메모리 DB 로 애플리케이션을 띄운다.
+ */
+public final class BenchmarkContext {
+
+    private BenchmarkContext() {
+    }
+
+    public static ConfigurableApplicationContext start(String name, String... properties) {
+        return new SpringApplicationBuilder(Application.class)
+                .properties(
+                        "server.port=0",
+                        "management.server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:" + name + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                        "spring.jpa.hibernate.ddl-auto=create-drop",
+                        "spring.jpa.show_sql=false",
+                        "spring.security.oauth2.client.registration.google.client-id=benchmark",
+                        "spring.security.oauth2.client.registration.google.client-secret=benchmark",
+                        "spring.security.oauth2.client.registration.google.scope=profile,email",
+                        "logging.level.root=WARN")
+                .properties(properties)
+                .run();
+    }
+
+    /**
+     * 엔티티는 setter 가 없기 때문에 id, modifiedDate 같은 값은 리플렉션으로 채운다.
+     */
+    public static void setField(Object target, String fieldName, Object value) {
+        Class<?> type = target.getClass();
+        while (type != null) {
+            try {
+                Field field = type.getDeclaredField(fieldName);
+                field.setAccessible(true);
+                field.set(target, value);
+                return;
+            } catch (NoSuchFieldException e) {
+                type = type.getSuperclass();
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        throw new IllegalArgumentException("필드가 없습니다. field=" + fieldName);
+    }
+}
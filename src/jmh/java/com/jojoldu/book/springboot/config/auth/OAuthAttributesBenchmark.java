@@ -0,0 +1,53 @@
+package com.jojoldu.book.springboot.config.auth;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 로그인 할때마다 실행되는 OAuth 사용자 정보 변환 비용, 구글과 네이버 응답 형식을 각각 측정한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class OAuthAttributesBenchmark {
+
+    private Map<String, Object> googleAttributes;
+    private Map<String, Object> naverAttributes;
+
+    @Setup
+    public void setup() {
+        googleAttributes = Map.of(
+                "sub", "109876543210987654321",
+                "name", "홍길동",
+                "email", "hong@gmail.com",
+                "picture", "https://lh3.googleusercontent.com/a/photo.jpg",
+                "email_verified", true,
+                "locale", "ko");
+        naverAttributes = Map.of(
+                "resultcode", "00",
+                "message", "success",
+                "response", Map.of(
+                        "id", "32742776",
+                        "name", "홍길동",
+                        "email", "hong@naver.com",
+                        "profile_image", "https://ssl.pstatic.net/static/pwe/address/img_profile.png"));
+    }
+
+    @Benchmark
+    public OAuthAttributes google() {
+        return OAuthAttributes.of("google", "sub", googleAttributes);
+    }
+
+    @Benchmark
+    public OAuthAttributes naver() {
+        return OAuthAttributes.of("naver", "response", naverAttributes);
+    }
+}
@@ -0,0 +1,77 @@
+package com.jojoldu.book.springboot.service.posts;
+
+import com.jojoldu.book.springboot.BenchmarkContext;
+import com.jojoldu.book.springboot.domain.posts.PostsRepository;
+import com.jojoldu.book.springboot.web.dto.PostsSaveRequestDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 게시글 등록 처리량(rows/sec), 한건씩 save 하는 경우와 saveAll(JDBC 배치 insert)을 비교한다.
+ * 스프링 컨텍스트와 H2 를 함께 띄우기 때문에 절대값보다 두 방식의 비율을 보는 용도이다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class PostsSaveBenchmark {
+
+    private static final int ROWS = 100;
+
+    private ConfigurableApplicationContext context;
+    private PostsService postsService;
+    private PostsRepository postsRepository;
+    private List<PostsSaveRequestDto> requestDtos;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = BenchmarkContext.start("postsSaveBenchmark");
+        postsService = context.getBean(PostsService.class);
+        postsRepository = context.getBean(PostsRepository.class);
+
+        requestDtos = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            requestDtos.add(PostsSaveRequestDto.builder()
+                    .title("title" + i)
+                    .content("content ".repeat(50))
+                    .author("author" + (i % 10))
+                    .build());
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void cleanup() {
+        postsRepository.deleteAllInBatch();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void singleSave() {
+        for (PostsSaveRequestDto requestDto : requestDtos) {
+            postsService.save(requestDto);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public List<Long> batchSave() {
+        return postsService.saveAll(requestDtos);
+    }
+}
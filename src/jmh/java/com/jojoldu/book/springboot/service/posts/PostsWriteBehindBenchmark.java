@@ -0,0 +1,70 @@
+package com.jojoldu.book.springboot.service.posts;
+
+import com.jojoldu.book.springboot.BenchmarkContext;
+import com.jojoldu.book.springboot.domain.posts.PostsRepository;
+import com.jojoldu.book.springboot.web.dto.PostsSaveRequestDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 동시에 여러 요청이 한건씩 등록할때의 처리량(inserts/sec), 요청마다 커밋하는 경우와 write-behind(group commit)를 비교한다.
+ * H2 메모리 DB 는 커밋할때 fsync 가 없어서 실제 MySQL 보다 차이가 작게 나온다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(32)
+public class PostsWriteBehindBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private PostsService postsService;
+    private PostsWriteBehindQueue writeBehindQueue;
+    private PostsRepository postsRepository;
+    private PostsSaveRequestDto requestDto;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = BenchmarkContext.start("postsWriteBehindBenchmark",
+                "posts.write-behind.enabled=true",
+                "posts.write-behind.capacity=100000");
+        postsService = context.getBean(PostsService.class);
+        writeBehindQueue = context.getBean(PostsWriteBehindQueue.class);
+        postsRepository = context.getBean(PostsRepository.class);
+        requestDto = PostsSaveRequestDto.builder()
+                .title("title")
+                .content("content ".repeat(50))
+                .author("author")
+                .build();
+    }
+
+    @TearDown(Level.Iteration)
+    public void cleanup() {
+        postsRepository.deleteAllInBatch();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Long perRequestCommit() {
+        return postsService.save(requestDto);
+    }
+
+    @Benchmark
+    public Long writeBehind() {
+        return writeBehindQueue.submit(requestDto).join();
+    }
+}
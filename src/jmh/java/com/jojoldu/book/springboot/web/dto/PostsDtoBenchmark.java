@@ -0,0 +1,67 @@
+package com.jojoldu.book.springboot.web.dto;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.jojoldu.book.springboot.BenchmarkContext;
+import com.jojoldu.book.springboot.config.JacksonConfig;
+import com.jojoldu.book.springboot.domain.posts.Posts;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 목록/단건 조회 응답 DTO 의 생성과 Jackson 직렬화 비용.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PostsDtoBenchmark {
+
+    private Posts posts;
+    private PostsListResponseDto listResponseDto;
+    private PostsResponseDto responseDto;
+    private ObjectMapper objectMapper;
+
+    @Setup
+    public void setup() {
+        posts = Posts.builder()
+                .title("스프링부트로 시작하는 웹 서비스")
+                .content("본문 ".repeat(100))
+                .author("jojoldu@gmail.com")
+                .build();
+        BenchmarkContext.setField(posts, "id", 1_000_000L);
+        BenchmarkContext.setField(posts, "modifiedDate", LocalDateTime.of(2025, 3, 20, 12, 30));
+
+        listResponseDto = new PostsListResponseDto(posts);
+        responseDto = new PostsResponseDto(posts);
+        objectMapper = JsonMapper.builder().findAndAddModules().filterProvider(JacksonConfig.defaultFilters()).build();
+    }
+
+    @Benchmark
+    public PostsListResponseDto constructListResponseDto() {
+        return new PostsListResponseDto(posts);
+    }
+
+    @Benchmark
+    public PostsResponseDto constructResponseDto() {
+        return new PostsResponseDto(posts);
+    }
+
+    @Benchmark
+    public byte[] serializeListResponseDto() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(listResponseDto);
+    }
+
+    @Benchmark
+    public byte[] serializeResponseDto() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(responseDto);
+    }
+}
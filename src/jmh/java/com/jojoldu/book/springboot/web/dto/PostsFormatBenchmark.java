@@ -0,0 +1,89 @@
+package com.jojoldu.book.springboot.web.dto;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.jojoldu.book.springboot.BenchmarkContext;
+import com.jojoldu.book.springboot.config.JacksonConfig;
+import com.jojoldu.book.springboot.domain.posts.Posts;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 응답 형식(json, cbor, smile)별 직렬화/역직렬화 시간, 응답 크기(바이트)는 Setup 에서 한번 출력한다.
+ * page             목록 한 페이지(20건) 전체 필드
+ * pageTitleOnly    같은 페이지를 fields=id,title 로 고른 경우
+ * readSaveRequest  등록 요청 본문(PostsSaveRequestDto) 역직렬화
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PostsFormatBenchmark {
+
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    private ObjectMapper objectMapper;
+    private PostsPageResponseDto page;
+    private byte[] saveRequest;
+
+    @Setup
+    public void setup() throws IOException {
+        JsonFactory factory = switch (format) {
+            case "cbor" -> new CBORFactory();
+            case "smile" -> new SmileFactory();
+            default -> new JsonFactory();
+        };
+        objectMapper = new ObjectMapper(factory).findAndRegisterModules().setFilterProvider(JacksonConfig.defaultFilters());
+
+        List<PostsListResponseDto> posts = new ArrayList<>();
+        for (long id = 1; id <= 20; id++) {
+            Posts entity = Posts.builder()
+                    .title("스프링부트로 시작하는 웹 서비스 " + id)
+                    .content("본문")
+                    .author("jojoldu@gmail.com")
+                    .build();
+            BenchmarkContext.setField(entity, "id", 1_000_000L + id);
+            BenchmarkContext.setField(entity, "modifiedDate", LocalDateTime.of(2025, 3, 20, 12, 30));
+            posts.add(new PostsListResponseDto(entity));
+        }
+        page = new PostsPageResponseDto(posts, 1_000_001L);
+        saveRequest = objectMapper.writeValueAsBytes(PostsSaveRequestDto.builder()
+                .title("스프링부트로 시작하는 웹 서비스")
+                .content("본문 ".repeat(100))
+                .author("jojoldu@gmail.com")
+                .build());
+
+        System.out.printf("%n[%s] page=%d bytes, pageTitleOnly=%d bytes, saveRequest=%d bytes%n",
+                format, page().length, pageTitleOnly().length, saveRequest.length);
+    }
+
+    @Benchmark
+    public byte[] page() throws IOException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] pageTitleOnly() throws IOException {
+        return objectMapper.writer(JacksonConfig.fieldsFilter(Set.of("id", "title"))).writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public PostsSaveRequestDto readSaveRequest() throws IOException {
+        return objectMapper.readValue(saveRequest, PostsSaveRequestDto.class);
+    }
+}
@@ -0,0 +1,306 @@
+package com.jojoldu.book.springboot;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jojoldu.book.springboot.config.auth.SessionUser;
+import com.jojoldu.book.springboot.domain.user.Role;
+import com.jojoldu.book.springboot.domain.user.User;
+import com.jojoldu.book.springboot.domain.user.UserRepository;
+import com.jojoldu.book.springboot.service.posts.PostsService;
+import com.jojoldu.book.springboot.web.dto.PostsSaveRequestDto;
+import com.jojoldu.book.springboot.web.dto.PostsUpdateRequestDto;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+import org.springframework.session.Session;
+import org.springframework.session.SessionRepository;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 보안 필터 체인, JDBC 세션, JPA, 머스테치 렌더링까지 포함한 전체 스택 부하 테스트.
+ * H2(MySQL 모드)로 애플리케이션을 띄우고 게시글/사용자를 미리 넣은 뒤, 여러 클라이언트가 동시에 섞인 요청을 보낸다.
+ * 로그인은 OAuth2 인증이 담긴 세션을 세션 저장소에 직접 만들고 SESSION 쿠키로 보내는 방식으로 흉내낸다.
+ * 결과는 엔드포인트별 처리량과 p50/p95/p99 지연시간이며 build/reports/load-test/summary.txt 에도 남긴다.
+ *
+ * ./gradlew loadTest -Dloadtest.clients=64 -Dloadtest.duration=60 -Dloadtest.posts=100000
+ */
+@SpringBootTest(classes = Application.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:loadTest;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show_sql=false",
+        "api.rate-limit.enabled=false",
+        "spring.security.oauth2.client.registration.google.client-id=load-test",
+        "spring.security.oauth2.client.registration.google.client-secret=load-test",
+        "spring.security.oauth2.client.registration.google.scope=profile,email",
+        "logging.level.root=WARN"
+})
+class PostsLoadTest {
+
+    private static final int POSTS = Integer.getInteger("loadtest.posts", 10_000);
+    private static final int USERS = Integer.getInteger("loadtest.users", 100);
+    private static final int CLIENTS = Integer.getInteger("loadtest.clients", 32);
+    private static final int WARMUP_SECONDS = Integer.getInteger("loadtest.warmup", 10);
+    private static final int DURATION_SECONDS = Integer.getInteger("loadtest.duration", 30);
+    private static final double MAX_ERROR_RATE = Double.parseDouble(System.getProperty("loadtest.max-error-rate", "0.01"));
+
+    enum Endpoint {
+        INDEX(50), GET_POST(25), LIST_POSTS(10), CREATE_POST(7), UPDATE_POST(5), DELETE_POST(3);
+
+        private final int weight;
+
+        Endpoint(int weight) {
+            this.weight = weight;
+        }
+    }
+
+    @LocalServerPort
+    int port;
+
+    @Autowired
+    private PostsService postsService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SessionRepository<? extends Session> sessionRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    @Test
+    void 전체_스택_부하_테스트() throws Exception {
+        List<Long> postIds = seedPosts();
+        List<String> sessionCookies = seedUsers();
+
+        run(Duration.ofSeconds(WARMUP_SECONDS), postIds, sessionCookies, new EnumMap<>(Endpoint.class));
+
+        Map<Endpoint, EndpointStats> stats = new EnumMap<>(Endpoint.class);
+        for (Endpoint endpoint : Endpoint.values()) {
+            stats.put(endpoint, new EndpointStats());
+        }
+        long elapsedNanos = run(Duration.ofSeconds(DURATION_SECONDS), postIds, sessionCookies, stats);
+
+        String report = report(stats, elapsedNanos);
+        System.out.println(report);
+        Path output = Path.of("build", "reports", "load-test", "summary.txt");
+        Files.createDirectories(output.getParent());
+        Files.writeString(output, report, StandardCharsets.UTF_8);
+
+        long requests = stats.values().stream().mapToLong(s -> s.histogram.getTotalCount()).sum();
+        long errors = stats.values().stream().mapToLong(s -> s.errors.sum()).sum();
+        assertThat(requests).isPositive();
+        assertThat((double) errors / requests).isLessThanOrEqualTo(MAX_ERROR_RATE);
+    }
+
+    private List<Long> seedPosts() {
+        List<Long> ids = new ArrayList<>(POSTS);
+        List<PostsSaveRequestDto> chunk = new ArrayList<>(PostsService.MAX_BATCH_SIZE);
+        for (int i = 0; i < POSTS; i++) {
+            chunk.add(PostsSaveRequestDto.builder()
+                    .title("부하 테스트 게시글 " + i)
+                    .content("본문 ".repeat(50))
+                    .author("user" + (i % USERS) + "@load.test")
+                    .build());
+            if (chunk.size() == PostsService.MAX_BATCH_SIZE || i == POSTS - 1) {
+                ids.addAll(postsService.saveAll(chunk));
+                chunk.clear();
+            }
+        }
+        return ids;
+    }
+
+    private List<String> seedUsers() {
+        List<String> cookies = new ArrayList<>(USERS);
+        for (int i = 0; i < USERS; i++) {
+            User user = userRepository.save(User.builder()
+                    .name("user" + i)
+                    .email("user" + i + "@load.test")
+                    .picture("https://load.test/user" + i + ".png")
+                    .role(Role.USER)
+                    .build());
+            cookies.add(createLoginSession(sessionRepository, user));
+        }
+        return cookies;
+    }
+
+    /**
+     * CustomOAuth2UserService 와 스프링 시큐리티가 로그인 후 세션에 남기는 값(SecurityContext, SessionUser)을 그대로 넣는다.
+     */
+    private <S extends Session> String createLoginSession(SessionRepository<S> repository, User user) {
+        List<GrantedAuthority> authorities = List.of(new SimpleGrantedAuthority(user.getRoleKey()));
+        DefaultOAuth2User principal = new DefaultOAuth2User(authorities,
+                Map.of("sub", user.getEmail(), "name", user.getName(), "email", user.getEmail()), "sub");
+
+        S session = repository.createSession();
+        session.setAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY,
+                new SecurityContextImpl(new OAuth2AuthenticationToken(principal, authorities, "google")));
+        session.setAttribute("user", new SessionUser(user));
+        repository.save(session);
+
+        return "SESSION=" + Base64.getEncoder().encodeToString(session.getId().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private long run(Duration duration, List<Long> postIds, List<String> sessionCookies, Map<Endpoint, EndpointStats> stats) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(CLIENTS);
+        long start = System.nanoTime();
+        long deadline = start + duration.toNanos();
+        try {
+            List<Future<?>> clients = new ArrayList<>(CLIENTS);
+            for (int i = 0; i < CLIENTS; i++) {
+                String cookie = sessionCookies.get(i % sessionCookies.size());
+                clients.add(executor.submit(() -> {
+                    client(deadline, cookie, postIds, stats);
+                    return null;
+                }));
+            }
+            for (Future<?> client : clients) {
+                client.get();
+            }
+        } finally {
+            executor.shutdownNow();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private void client(long deadline, String cookie, List<Long> postIds, Map<Endpoint, EndpointStats> stats) throws IOException, InterruptedException {
+        Deque<Long> createdIds = new ArrayDeque<>();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        while (System.nanoTime() < deadline) {
+            Endpoint endpoint = pick(random);
+            if (endpoint == Endpoint.DELETE_POST && createdIds.isEmpty()) {
+                endpoint = Endpoint.CREATE_POST;
+            }
+            HttpRequest request = request(endpoint, cookie, postIds.get(random.nextInt(postIds.size())), createdIds);
+
+            long begin = System.nanoTime();
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            long latency = System.nanoTime() - begin;
+
+            if (endpoint == Endpoint.CREATE_POST && response.statusCode() == 200) {
+                createdIds.push(Long.valueOf(response.body().trim()));
+            }
+            EndpointStats endpointStats = stats.get(endpoint);
+            if (endpointStats != null) {
+                endpointStats.record(latency, response.statusCode());
+            }
+        }
+    }
+
+    private Endpoint pick(ThreadLocalRandom random) {
+        int value = random.nextInt(100);
+        for (Endpoint endpoint : Endpoint.values()) {
+            value -= endpoint.weight;
+            if (value < 0) {
+                return endpoint;
+            }
+        }
+        return Endpoint.INDEX;
+    }
+
+    private HttpRequest request(Endpoint endpoint, String cookie, Long postId, Deque<Long> createdIds) throws IOException {
+        String baseUrl = "http://localhost:" + port;
+        HttpRequest.Builder builder = HttpRequest.newBuilder().header("Cookie", cookie).timeout(Duration.ofSeconds(30));
+
+        switch (endpoint) {
+            case INDEX -> builder.uri(URI.create(baseUrl + "/")).GET();
+            case GET_POST -> builder.uri(URI.create(baseUrl + "/api/v1/posts/" + postId)).GET();
+            case LIST_POSTS -> builder.uri(URI.create(baseUrl + "/api/v1/posts?cursor=" + postId + "&size=20")).GET();
+            case CREATE_POST -> builder.uri(URI.create(baseUrl + "/api/v1/posts"))
+                    .header("Content-Type", "application/json")
+                    .POST(json(PostsSaveRequestDto.builder().title("새 게시글").content("본문 ".repeat(50)).author("load-test").build()));
+            case UPDATE_POST -> builder.uri(URI.create(baseUrl + "/api/v1/posts/" + postId))
+                    .header("Content-Type", "application/json")
+                    .PUT(json(PostsUpdateRequestDto.builder().title("수정된 게시글").content("수정된 본문 ".repeat(50)).build()));
+            case DELETE_POST -> builder.uri(URI.create(baseUrl + "/api/v1/posts/" + createdIds.pop())).DELETE();
+        }
+        return builder.build();
+    }
+
+    private HttpRequest.BodyPublisher json(Object body) throws IOException {
+        return HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body));
+    }
+
+    private String report(Map<Endpoint, EndpointStats> stats, long elapsedNanos) {
+        double seconds = elapsedNanos / 1_000_000_000.0;
+        StringBuilder report = new StringBuilder()
+                .append(String.format("clients=%d, duration=%.1fs, posts=%d, users=%d%n", CLIENTS, seconds, POSTS, USERS))
+                .append(String.format("%-12s %10s %10s %8s %10s %10s %10s %10s%n",
+                        "endpoint", "requests", "req/s", "errors", "p50(ms)", "p95(ms)", "p99(ms)", "max(ms)"));
+
+        Histogram total = new Histogram(3);
+        for (Map.Entry<Endpoint, EndpointStats> entry : stats.entrySet()) {
+            Histogram histogram = entry.getValue().histogram;
+            total.add(histogram);
+            report.append(line(entry.getKey().name(), histogram, entry.getValue().errors.sum(), seconds));
+        }
+        long totalErrors = stats.values().stream().mapToLong(s -> s.errors.sum()).sum();
+        report.append(line("TOTAL", total, totalErrors, seconds));
+        return report.toString();
+    }
+
+    private String line(String name, Histogram histogram, long errors, double seconds) {
+        return String.format("%-12s %10d %10.1f %8d %10.2f %10.2f %10.2f %10.2f%n",
+                name,
+                histogram.getTotalCount(),
+                histogram.getTotalCount() / seconds,
+                errors,
+                histogram.getValueAtPercentile(50) / 1_000_000.0,
+                histogram.getValueAtPercentile(95) / 1_000_000.0,
+                histogram.getValueAtPercentile(99) / 1_000_000.0,
+                histogram.getMaxValue() / 1_000_000.0);
+    }
+
+    private static class EndpointStats {
+
+        private final ConcurrentHistogram histogram = new ConcurrentHistogram(TimeUnit.MINUTES.toNanos(1), 3);
+        private final LongAdder errors = new LongAdder();
+
+        private void record(long latencyNanos, int status) {
+            histogram.recordValue(Math.min(latencyNanos, histogram.getHighestTrackableValue()));
+            if (status >= 400) {
+                errors.increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.jojoldu.book.springboot.config;
+
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 캐시 구현체(Caffeine)와 크기, TTL 은 application.properties 의 spring.cache.* 로 설정한다.
+ * 'setTransactionAware(true)'    '@CacheEvict' 를 트랜잭션 커밋 이후에 실행한다, 커밋 전에 지우면 다른 요청이 이전 값을 다시 캐시에 넣을수 있다.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String POSTS = "posts";
+
+    @Bean
+    public CacheManagerCustomizer<CaffeineCacheManager> transactionAwareCacheManager() {
+        return cacheManager -> cacheManager.setTransactionAware(true);
+    }
+}
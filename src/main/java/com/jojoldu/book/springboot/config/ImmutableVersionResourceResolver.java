@@ -0,0 +1,128 @@
+package com.jojoldu.book.springboot.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.Nullable;
+import org.springframework.web.servlet.resource.HttpResource;
+import org.springframework.web.servlet.resource.ResourceResolverChain;
+import org.springframework.web.servlet.resource.VersionResourceResolver;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URL;
+import java.util.List;
+
+/**
+ * md5 가 붙은 주소(/js/app/index-<md5>.js)로 찾은 파일에만 versionedCacheControl(1년 + immutable)을 붙이는 VersionResourceResolver.
+ * 주소 그대로 찾을수 있는 파일(/js/app/index.js)은 버전 주소가 아니므로 그대로 반환해서 핸들러의 캐시 설정(no-cache)을 따르게 한다.
+ * Cache-Control 은 HttpResource 의 응답 헤더로 넘긴다, ResourceHttpRequestHandler 가 핸들러의 캐시 설정 다음에 덮어쓴다.
+ */
+public class ImmutableVersionResourceResolver extends VersionResourceResolver {
+
+    private final CacheControl versionedCacheControl;
+
+    public ImmutableVersionResourceResolver(CacheControl versionedCacheControl) {
+        this.versionedCacheControl = versionedCacheControl;
+    }
+
+    @Override
+    protected Resource resolveResourceInternal(@Nullable HttpServletRequest request, String requestPath,
+                                               List<? extends Resource> locations, ResourceResolverChain chain) {
+        Resource resolved = chain.resolveResource(request, requestPath, locations);
+        if (resolved != null) {
+            return resolved;
+        }
+        Resource versioned = super.resolveResourceInternal(request, requestPath, locations, chain);
+        return versioned == null ? null : new ImmutableResource(versioned, versionedCacheControl.getHeaderValue());
+    }
+
+    /**
+     * 버전 주소로 찾은 파일, 원래 파일에 위임하고 응답 헤더에 Cache-Control 만 더한다. (VersionResourceResolver 가 붙인 ETag 는 유지한다)
+     */
+    private static final class ImmutableResource extends AbstractResource implements HttpResource {
+
+        private final Resource original;
+        private final String cacheControl;
+
+        private ImmutableResource(Resource original, String cacheControl) {
+            this.original = original;
+            this.cacheControl = cacheControl;
+        }
+
+        @Override
+        public boolean exists() {
+            return original.exists();
+        }
+
+        @Override
+        public boolean isReadable() {
+            return original.isReadable();
+        }
+
+        @Override
+        public boolean isFile() {
+            return original.isFile();
+        }
+
+        @Override
+        public URL getURL() throws IOException {
+            return original.getURL();
+        }
+
+        @Override
+        public URI getURI() throws IOException {
+            return original.getURI();
+        }
+
+        @Override
+        public File getFile() throws IOException {
+            return original.getFile();
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return original.getInputStream();
+        }
+
+        @Override
+        public long contentLength() throws IOException {
+            return original.contentLength();
+        }
+
+        @Override
+        public long lastModified() throws IOException {
+            return original.lastModified();
+        }
+
+        @Override
+        public Resource createRelative(String relativePath) throws IOException {
+            return original.createRelative(relativePath);
+        }
+
+        @Override
+        @Nullable
+        public String getFilename() {
+            return original.getFilename();
+        }
+
+        @Override
+        public String getDescription() {
+            return original.getDescription();
+        }
+
+        @Override
+        public HttpHeaders getResponseHeaders() {
+            HttpHeaders headers = new HttpHeaders();
+            if (original instanceof HttpResource httpResource) {
+                headers.putAll(httpResource.getResponseHeaders());
+            }
+            headers.setCacheControl(cacheControl);
+            return headers;
+        }
+    }
+}
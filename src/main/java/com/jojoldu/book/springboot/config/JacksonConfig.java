@@ -0,0 +1,51 @@
+package com.jojoldu.book.springboot.config;
+
+import com.fasterxml.jackson.databind.ser.FilterProvider;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+import java.util.Set;
+
+/**
+ * FIELDS_FILTER    '@JsonFilter(FIELDS_FILTER)' 가 붙은 DTO 는 fields 파라미터로 고른 필드만 직렬화한다. (PostsApiController.withFields)
+ *                  고르지 않은 요청도 직렬화할수 있도록 기본 필터는 모든 필드를 내보낸다.
+ * cbor, smile      Accept / Content-Type 이 application/cbor, application/x-jackson-smile 이면 바이너리로 주고받는다.
+ *                  스프링 기본 컨버터는 부트 설정(날짜 형식, 모듈, 기본 필터)이 빠진 ObjectMapper 를 쓰기 때문에
+ *                  부트의 Jackson2ObjectMapperBuilder 로 만든 컨버터를 빈으로 등록해서 기본 컨버터를 대체한다.
+ */
+@Configuration
+public class JacksonConfig {
+
+    public static final String FIELDS_FILTER = "fields";
+
+    public static SimpleFilterProvider defaultFilters() {
+        return new SimpleFilterProvider().addFilter(FIELDS_FILTER, SimpleBeanPropertyFilter.serializeAll());
+    }
+
+    public static FilterProvider fieldsFilter(Set<String> fields) {
+        return new SimpleFilterProvider().addFilter(FIELDS_FILTER, SimpleBeanPropertyFilter.filterOutAllExcept(fields));
+    }
+
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer defaultFieldsFilter() {
+        return builder -> builder.filters(defaultFilters());
+    }
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+}
@@ -0,0 +1,29 @@
+package com.jojoldu.book.springboot.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * '@Timed' 가 붙은 클래스의 public 메소드 실행시간을 class, method 태그와 함께 타이머로 기록한다.
+ * HikariCP 풀, 캐시, 하이버네이트 통계(hibernate.generate_statistics) 메트릭은 스프링 부트가 자동으로 등록한다.
+ * 하이버네이트 통계는 기본으로 켜고, metrics.hibernate-statistics=false 로 끌수 있다.
+ * SQL 로그는 느린 쿼리(log_slow_query) 전부 + 나머지는 metrics.sql.sample-rate 비율의 표본만 남긴다. (SampledStatementInspector)
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer sampledStatementInspectorCustomizer(@Value("${metrics.sql.sample-rate:0}") double sampleRate) {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, new SampledStatementInspector(sampleRate));
+    }
+}
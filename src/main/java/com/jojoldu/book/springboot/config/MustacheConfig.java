@@ -0,0 +1,28 @@
+package com.jojoldu.book.springboot.config;
+
+import com.jojoldu.book.springboot.web.view.CachingMustacheView;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.web.servlet.view.MustacheViewResolver;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 부트가 만든 MustacheViewResolver 의 View 클래스만 CachingMustacheView 로 바꾼다.
+ * 리졸버를 직접 등록하면 spring.mustache.* 설정을 모두 다시 옮겨야 하기 때문에 SessionConfig 와 같이 BeanPostProcessor 를 사용한다.
+ */
+@Configuration
+public class MustacheConfig {
+
+    @Bean
+    public static BeanPostProcessor cachingMustacheViewPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof MustacheViewResolver viewResolver) {
+                    viewResolver.setViewClass(CachingMustacheView.class);
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,32 @@
+package com.jojoldu.book.springboot.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 실행하는 SQL 중 sampleRate 비율만 org.hibernate.SQL_SAMPLE 로거로 남긴다, show_sql 처럼 모두 남기지 않고 어떤 쿼리가 나가는지 표본으로 본다.
+ * 느린 쿼리는 표본과 관계없이 hibernate.log_slow_query 가 org.hibernate.SQL_SLOW 로 모두 남긴다.
+ * SQL 은 바꾸지 않고 그대로 반환한다, 0 이면 난수도 만들지 않는다.
+ */
+@Slf4j(topic = "org.hibernate.SQL_SAMPLE")
+public class SampledStatementInspector implements StatementInspector {
+
+    private final double sampleRate;
+
+    public SampledStatementInspector(double sampleRate) {
+        if (sampleRate < 0 || sampleRate > 1) {
+            throw new IllegalArgumentException("sample-rate 는 0 ~ 1 사이여야 합니다. sampleRate=" + sampleRate);
+        }
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        if (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            log.info(sql);
+        }
+        return sql;
+    }
+}
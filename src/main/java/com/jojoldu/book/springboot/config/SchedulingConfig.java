@@ -0,0 +1,12 @@
+package com.jojoldu.book.springboot.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * '@Scheduled' 작업(게시글 수 flush, 재계산)을 실행한다, 스레드 수는 spring.task.scheduling.pool.size 로 설정한다.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -3,19 +3,50 @@ package com.jojoldu.book.springboot.config;
 import com.jojoldu.book.springboot.config.auth.LoginUserArgumentResolver;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.CacheControl;
 import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
 
+import java.time.Duration;
 import java.util.List;
 
+/**
+ * addResourceHandlers    정적 파일(/js, /css, /images) 설정.
+ *                        VersionResourceResolver    파일 내용의 md5 를 파일명에 붙인 주소(/js/app/index-<md5>.js)로도 찾을수 있게 한다.
+ *                                                   내용이 바뀌면 주소가 바뀌기 때문에 이 주소로 찾은 파일만 1년 + immutable 로 캐시한다. (ImmutableVersionResourceResolver)
+ *                        setCacheControl            md5 가 없는 주소(/js/app/index.js)는 no-cache 로 응답해서 매번 Last-Modified 로 재검증한다,
+ *                                                   배포 후에도 {{#asset}} 을 거치지 않은 주소가 이전 파일로 남지 않는다.
+ *                        EncodedResourceResolver    빌드할때 미리 압축해둔 .gz 파일이 있고 Accept-Encoding 에 gzip 이 있으면 그 파일을 그대로 보낸다.
+ *                        resourceChain(true)        찾은 결과를 캐시해서 md5 는 파일마다 한번만 계산한다.
+ * 템플릿에서는 AssetUrlAdvice 의 {{#asset}}/js/app/index.js{{/asset}} 로 md5 가 붙은 주소를 출력한다.
+ */
 @Configuration
 @RequiredArgsConstructor
 public class WebConfig implements WebMvcConfigurer {
 
+    public static final String[] STATIC_PATTERNS = {"/js/**", "/css/**", "/images/**"};
+    private static final String[] STATIC_DIRECTORIES = {"js", "css", "images"};
+    private static final Duration VERSIONED_MAX_AGE = Duration.ofDays(365);
+
     private final LoginUserArgumentResolver loginUserArgumentResolver;
 
     @Override
     public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
         resolvers.add(loginUserArgumentResolver);
     }
+
+    @Override
+    public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        for (String directory : STATIC_DIRECTORIES) {
+            registry.addResourceHandler("/" + directory + "/**")
+                    .addResourceLocations("classpath:/static/" + directory + "/")
+                    .setCacheControl(CacheControl.noCache().cachePublic())
+                    .resourceChain(true)
+                    .addResolver(new EncodedResourceResolver())
+                    .addResolver(new ImmutableVersionResourceResolver(CacheControl.maxAge(VERSIONED_MAX_AGE).cachePublic().immutable())
+                            .addContentVersionStrategy("/**"));
+        }
+    }
 }
@@ -1,9 +1,12 @@
 package com.jojoldu.book.springboot.config.auth;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.jojoldu.book.springboot.domain.user.User;
 import com.jojoldu.book.springboot.domain.user.UserRepository;
 import jakarta.servlet.http.HttpSession;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.oauth2.client.userinfo.DefaultOAuth2UserService;
 import org.springframework.security.oauth2.client.userinfo.OAuth2UserRequest;
@@ -13,14 +16,23 @@ import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
 import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.util.Collections;
 
+/**
+ * recentUsers    최근 로그인한 사용자를 email 로 캐시한다, 프로필(name, picture)이 같으면 DB 를 조회하지도 저장하지도 않는다.
+ *                DB 에서 직접 바꾼 권한(role)은 캐시가 만료될때(10분)까지 반영되지 않는다.
+ */
 @RequiredArgsConstructor
 @Service
 public class CustomOAuth2UserService implements OAuth2UserService<OAuth2UserRequest, OAuth2User> {
 
     private final UserRepository userRepository;
     private final HttpSession httpSession;
+    private final Cache<String, User> recentUsers = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterWrite(Duration.ofMinutes(10))
+            .build();
 
     @Override
     public OAuth2User loadUser(OAuth2UserRequest userRequest) throws OAuth2AuthenticationException {
@@ -42,10 +54,37 @@ public class CustomOAuth2UserService implements OAuth2UserService<OAuth2UserRequ
     }
 
     private User saveOrUpdate(OAuthAttributes attributes) {
-        User user = userRepository.findByEmail(attributes.getEmail())
-                .map(en -> en.update(attributes.getName(), attributes.getPicture()))
-                .orElse(attributes.toEntity());
-        return userRepository.save(user);
+        String email = attributes.getEmail();
+        if (email == null) {
+            return findAndSave(attributes);
+        }
+
+        User cached = recentUsers.getIfPresent(email);
+        if (cached != null && cached.isSameProfile(attributes.getName(), attributes.getPicture())) {
+            return cached;
+        }
+        User user = findAndSave(attributes);
+        recentUsers.put(email, user);
+        return user;
+    }
+
+    private User findAndSave(OAuthAttributes attributes) {
+        return userRepository.findByEmail(attributes.getEmail())
+                .map(en -> en.isSameProfile(attributes.getName(), attributes.getPicture())
+                        ? en
+                        : userRepository.save(en.update(attributes.getName(), attributes.getPicture())))
+                .orElseGet(() -> insert(attributes));
+    }
+
+    /**
+     * 같은 사용자가 동시에 처음 로그인하면 unique 인덱스에 걸리기 때문에, 먼저 저장된 사용자를 다시 조회한다.
+     */
+    private User insert(OAuthAttributes attributes) {
+        try {
+            return userRepository.save(attributes.toEntity());
+        } catch (DataIntegrityViolationException e) {
+            return userRepository.findByEmail(attributes.getEmail()).orElseThrow(() -> e);
+        }
     }
 
 }
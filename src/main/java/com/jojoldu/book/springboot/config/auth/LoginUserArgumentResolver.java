@@ -1,7 +1,7 @@
 package com.jojoldu.book.springboot.config.auth;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpSession;
-import lombok.RequiredArgsConstructor;
 import org.springframework.core.MethodParameter;
 import org.springframework.stereotype.Component;
 import org.springframework.web.bind.support.WebDataBinderFactory;
@@ -12,14 +12,12 @@ import org.springframework.web.method.support.ModelAndViewContainer;
 /**
  * supportsParameter 컨트롤러 메서드의 특정 파라미터를 지원하는지 판단, 여기서는 파라미터에 @LoginUser 가 붙어있고, 파라미터 클래스 타입이 SessionUser.class 인 경우 true 반환.
  * resolveArgument 파라미터에 전달한 객체를 생성한다, 여기서는 세션에서 객체를 가져온다.
+ *                 getSession(false) 로 이미 있는 세션만 조회한다, 세션 쿠키가 없는 요청(비로그인)은 세션을 새로 만들지 않기 때문에 세션 테이블에 쓰지 않는다.
  */
 
-@RequiredArgsConstructor
 @Component
 public class LoginUserArgumentResolver implements HandlerMethodArgumentResolver {
 
-    private final HttpSession httpSession;
-
     @Override
     public boolean supportsParameter(MethodParameter parameter) {
         boolean isLoginUserAnnotation = parameter.getParameterAnnotation(LoginUser.class) != null;
@@ -29,6 +27,8 @@ public class LoginUserArgumentResolver implements HandlerMethodArgumentResolver
 
     @Override
     public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer, NativeWebRequest webRequest, WebDataBinderFactory binderFactory) throws Exception {
-        return httpSession.getAttribute("user");
+        HttpServletRequest request = webRequest.getNativeRequest(HttpServletRequest.class);
+        HttpSession httpSession = (request == null) ? null : request.getSession(false);
+        return (httpSession == null) ? null : httpSession.getAttribute("user");
     }
 }
@@ -1,11 +1,16 @@
 package com.jojoldu.book.springboot.config.auth;
 
+import com.jojoldu.book.springboot.config.WebConfig;
+import com.jojoldu.book.springboot.config.ratelimit.ApiRateLimiter;
+import com.jojoldu.book.springboot.config.ratelimit.RateLimitFilter;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.annotation.web.configuration.WebSecurityCustomizer;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.AuthorizationFilter;
 
 @RequiredArgsConstructor
 @Configuration
@@ -13,6 +18,15 @@ import org.springframework.security.web.SecurityFilterChain;
 public class SecurityConfig {
 
     private final CustomOAuth2UserService customOAuth2UserService;
+    private final ApiRateLimiter apiRateLimiter;
+
+    /**
+     * 정적 파일은 인증이 필요 없기 때문에 시큐리티 필터 체인을 거치지 않게 한다. (세션 조회, SecurityContext 저장 생략)
+     */
+    @Bean
+    public WebSecurityCustomizer staticResourcesCustomizer() {
+        return web -> web.ignoring().requestMatchers(WebConfig.STATIC_PATTERNS);
+    }
 
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
@@ -21,9 +35,12 @@ public class SecurityConfig {
                 .headers(headers -> headers.frameOptions(frame -> frame.disable())) // h2-console 사용을 위해 필요
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/", "/css/**", "/images/**", "/js/**", "/h2-console/**", "/profile").permitAll()
+                        .requestMatchers("/posts/author", "/posts/events").permitAll()
+                        .requestMatchers("/actuator/health", "/actuator/prometheus").permitAll() // management.server.port(내부망)로만 노출된다
                         .requestMatchers("/api/v1/**").hasRole("USER")
                         .anyRequest().authenticated()
                 )
+                .addFilterAfter(new RateLimitFilter(apiRateLimiter), AuthorizationFilter.class) // 인가를 통과한 /api/v1 요청만 사용자별로 제한한다
                 .logout(logout -> logout.logoutSuccessUrl("/")) // 로그아웃 시 메인 페이지로 이동
                 .oauth2Login(oauth2 -> oauth2
                         .userInfoEndpoint(userInfo -> userInfo.userService(customOAuth2UserService))
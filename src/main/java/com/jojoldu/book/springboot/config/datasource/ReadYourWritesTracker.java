@@ -0,0 +1,59 @@
+package com.jojoldu.book.springboot.config.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.jojoldu.book.springboot.service.posts.PostsChangedEvent;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+
+/**
+ * 사용자가 직접 쓰기를 한 뒤 window 동안은 읽기 전용 트랜잭션도 primary 로 보내서, 복제 지연 때문에 방금 쓴 글이 안 보이는 일이 없게 한다.
+ * 사용자는 SecurityContext 의 이름으로 구분하고, 로그인하지 않은 요청은 기록하지 않는다.
+ * 쓰기는 게시글 변경 이벤트(커밋 이후)로 기록한다, 다른 쓰기도 같은 보장이 필요하면 markWrite() 를 호출한다.
+ * 요청 스레드가 아닌 곳에서 커밋하는 경우(write-behind)는 SecurityContext 가 없어서, 요청할때 currentUser() 로 받아둔 이름으로 markWrite(user) 를 호출한다.
+ */
+public class ReadYourWritesTracker {
+
+    private static final long MAXIMUM_SIZE = 100_000;
+
+    private final Cache<String, Boolean> recentWriters;
+
+    public ReadYourWritesTracker(Duration window) {
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(window)
+                .maximumSize(MAXIMUM_SIZE)
+                .build();
+    }
+
+    @TransactionalEventListener
+    public void onPostsChanged(PostsChangedEvent event) {
+        markWrite();
+    }
+
+    public void markWrite() {
+        markWrite(currentUser());
+    }
+
+    public void markWrite(String user) {
+        if (user != null) {
+            recentWriters.put(user, Boolean.TRUE);
+        }
+    }
+
+    public boolean isWithinWindow() {
+        String user = currentUser();
+        return user != null && recentWriters.getIfPresent(user) != null;
+    }
+
+    public static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication instanceof AnonymousAuthenticationToken || !authentication.isAuthenticated()) {
+            return null;
+        }
+        return authentication.getName();
+    }
+}
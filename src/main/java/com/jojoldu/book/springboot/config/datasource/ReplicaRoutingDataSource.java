@@ -0,0 +1,92 @@
+package com.jojoldu.book.springboot.config.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 읽기 전용 트랜잭션이 사용할 replica 를 고른다. (LazyConnectionDataSourceProxy 의 readOnlyDataSource)
+ * ROUND_ROBIN    순서대로 돌아가면서 고른다.
+ * LEAST_BUSY     HikariCP 풀에서 사용중인 커넥션이 가장 적은 replica 를 고른다, 같으면 앞의 replica 를 고른다.
+ * replica 에서 커넥션을 얻지 못하면 다음 replica 를 시도하고, 모두 실패하면 primary 를 사용한다.
+ * 사용자가 방금 쓰기를 했다면(ReadYourWritesTracker) replica 를 건너뛰고 primary 를 사용한다.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource implements Closeable {
+
+    public enum Selection {
+        ROUND_ROBIN, LEAST_BUSY;
+
+        public static Selection from(String value) {
+            return valueOf(value.trim().toUpperCase().replace('-', '_'));
+        }
+    }
+
+    private final HikariDataSource primary;
+    private final List<HikariDataSource> replicas;
+    private final Selection selection;
+    private final ReadYourWritesTracker readYourWritesTracker;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(HikariDataSource primary, List<HikariDataSource> replicas, Selection selection,
+                                    ReadYourWritesTracker readYourWritesTracker) {
+        if (replicas.isEmpty()) {
+            throw new IllegalArgumentException("replica 가 하나 이상 있어야 합니다.");
+        }
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.selection = selection;
+        this.readYourWritesTracker = readYourWritesTracker;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (readYourWritesTracker.isWithinWindow()) {
+            return primary.getConnection();
+        }
+        int first = select();
+        for (int i = 0; i < replicas.size(); i++) {
+            HikariDataSource replica = replicas.get((first + i) % replicas.size());
+            try {
+                return replica.getConnection();
+            } catch (SQLException e) {
+                log.warn("replica connection failed. pool={}", replica.getPoolName(), e);
+            }
+        }
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return getConnection();
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(HikariDataSource::close);
+    }
+
+    private int select() {
+        if (selection == Selection.ROUND_ROBIN) {
+            return Math.floorMod(next.getAndIncrement(), replicas.size());
+        }
+        int leastBusy = 0;
+        int leastActive = Integer.MAX_VALUE;
+        for (int i = 0; i < replicas.size(); i++) {
+            HikariPoolMXBean pool = replicas.get(i).getHikariPoolMXBean();
+            int active = pool == null ? 0 : pool.getActiveConnections();
+            if (active < leastActive) {
+                leastBusy = i;
+                leastActive = active;
+            }
+        }
+        return leastBusy;
+    }
+}
@@ -0,0 +1,74 @@
+package com.jojoldu.book.springboot.config.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * /api/v1/** 요청을 사용자별로 제한한다, 조회(GET, HEAD)와 쓰기(나머지)는 서로 다른 버킷을 쓴다.
+ * 쓰기는 트랜잭션과 커넥션을 더 오래 잡기 때문에 조회보다 낮게 둔다. 거절된 요청은 api.rate-limit.rejected{route} 로 센다.
+ * 버킷이 가득 찬(오래 요청이 없던) 사용자는 evict-interval 마다 지운다.
+ */
+@Slf4j
+@Component
+public class ApiRateLimiter {
+
+    public enum Route {
+        READ, WRITE
+    }
+
+    private final boolean enabled;
+    private final TokenBucket read;
+    private final TokenBucket write;
+    private final Counter readRejected;
+    private final Counter writeRejected;
+
+    public ApiRateLimiter(@Value("${api.rate-limit.enabled:true}") boolean enabled,
+                          @Value("${api.rate-limit.read.per-second:50}") long readPerSecond,
+                          @Value("${api.rate-limit.read.burst:100}") long readBurst,
+                          @Value("${api.rate-limit.write.per-second:10}") long writePerSecond,
+                          @Value("${api.rate-limit.write.burst:30}") long writeBurst,
+                          MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.read = new TokenBucket(readPerSecond, readBurst);
+        this.write = new TokenBucket(writePerSecond, writeBurst);
+        this.readRejected = Counter.builder("api.rate-limit.rejected").tag("route", "read").register(meterRegistry);
+        this.writeRejected = Counter.builder("api.rate-limit.rejected").tag("route", "write").register(meterRegistry);
+        meterRegistry.gauge("api.rate-limit.buckets", this, limiter -> limiter.read.size() + limiter.write.size());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 허용되면 0, 거절되면 다시 요청할수 있을때까지 기다려야 하는 시간(나노초)을 반환한다.
+     */
+    public long tryAcquire(Route route, String key) {
+        long now = System.nanoTime();
+        if (route == Route.READ) {
+            long wait = read.tryAcquire(key, now);
+            if (wait > 0) {
+                readRejected.increment();
+            }
+            return wait;
+        }
+        long wait = write.tryAcquire(key, now);
+        if (wait > 0) {
+            writeRejected.increment();
+        }
+        return wait;
+    }
+
+    @Scheduled(fixedDelayString = "${api.rate-limit.evict-interval:1m}")
+    public void evictIdle() {
+        long now = System.nanoTime();
+        int evicted = read.evictIdle(now) + write.evictIdle(now);
+        if (evicted > 0) {
+            log.debug("idle rate limit buckets evicted. count={}", evicted);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.jojoldu.book.springboot.config.ratelimit;
+
+import com.jojoldu.book.springboot.config.auth.SessionUser;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * /api/v1/** 요청을 ApiRateLimiter 로 제한하고, 넘치면 컨트롤러(DB 커넥션)까지 가지 않고 429 + Retry-After(초) 로 응답한다.
+ * 키는 세션의 로그인 사용자 email 이고, 세션이 없으면 접속 IP 이다.
+ * 인가 필터 뒤에 두기 때문에 인증되지 않은 요청은 여기까지 오지 않는다. 빈으로 등록하면 서블릿 필터로도 한번 더 등록되기 때문에 SecurityConfig 에서 직접 만든다.
+ */
+@RequiredArgsConstructor
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final String API_PREFIX = "/api/v1/";
+
+    private final ApiRateLimiter apiRateLimiter;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !apiRateLimiter.isEnabled() || !request.getRequestURI().startsWith(API_PREFIX);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String method = request.getMethod();
+        ApiRateLimiter.Route route = ("GET".equals(method) || "HEAD".equals(method)) ? ApiRateLimiter.Route.READ : ApiRateLimiter.Route.WRITE;
+        long waitNanos = apiRateLimiter.tryAcquire(route, key(request));
+        if (waitNanos > 0) {
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1))));
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private static String key(HttpServletRequest request) {
+        HttpSession session = request.getSession(false);
+        if (session != null && session.getAttribute("user") instanceof SessionUser user && user.getEmail() != null) {
+            return user.getEmail();
+        }
+        return request.getRemoteAddr();
+    }
+}
@@ -0,0 +1,64 @@
+package com.jojoldu.book.springboot.config.ratelimit;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 키(사용자)별 토큰 버킷, 초당 permitsPerSecond 개씩 채워지고 최대 burst 개까지 모인다.
+ * GCRA    토큰 수와 마지막 충전 시각 대신 "다음 요청이 허용되는 이론적 시각(tat)" 하나만 AtomicLong 에 둔다.
+ *         요청마다 tat 를 emission interval 만큼 미루고, 미룬 값이 지금보다 burst 개 이상 앞서면 거절한다.
+ *         값이 하나라서 락 없이 CAS 한번으로 판단하고, 타이머로 충전할 필요가 없다.
+ * 맵      ConcurrentHashMap 은 버킷(해시 구간)마다 따로 잠그기 때문에 새 키를 추가할때도 다른 키와 경합하지 않고, 조회는 잠그지 않는다.
+ * 정리    tat 가 지난 버킷은 가득 찬 상태와 같아서 지워도 결과가 같다, evictIdle 로 지워서 키 수만큼 메모리가 늘어나지 않게 한다.
+ */
+public class TokenBucket {
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final long emissionIntervalNanos;
+    private final long burstNanos;
+    private final ConcurrentMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    public TokenBucket(long permitsPerSecond, long burst) {
+        if (permitsPerSecond <= 0 || burst <= 0) {
+            throw new IllegalArgumentException("permitsPerSecond, burst 는 0보다 커야 합니다. permitsPerSecond=" + permitsPerSecond + ", burst=" + burst);
+        }
+        this.emissionIntervalNanos = NANOS_PER_SECOND / permitsPerSecond;
+        this.burstNanos = emissionIntervalNanos * burst;
+    }
+
+    /**
+     * 허용되면 0, 거절되면 다음 요청이 허용될때까지 기다려야 하는 시간(나노초)을 반환한다.
+     */
+    public long tryAcquire(String key, long nowNanos) {
+        AtomicLong tat = buckets.get(key);
+        if (tat == null) {
+            tat = buckets.computeIfAbsent(key, k -> new AtomicLong(nowNanos));
+        }
+        while (true) {
+            long current = tat.get();
+            long next = (current - nowNanos > 0 ? current : nowNanos) + emissionIntervalNanos;
+            long wait = next - burstNanos - nowNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (tat.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * 지우는 중에 같은 키로 들어온 요청은 지워진 버킷을 갱신할수 있다, 그 경우 다음 요청이 가득 찬 새 버킷을 받을 뿐이다.
+     */
+    public int evictIdle(long nowNanos) {
+        int before = buckets.size();
+        buckets.values().removeIf(tat -> tat.get() - nowNanos <= 0);
+        return before - buckets.size();
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+}
@@ -0,0 +1,311 @@
+package com.jojoldu.book.springboot.config.session;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.core.serializer.support.DeserializingConverter;
+import org.springframework.core.serializer.support.SerializingConverter;
+import org.springframework.session.FindByIndexNameSessionRepository;
+import org.springframework.session.MapSession;
+import org.springframework.session.Session;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * JDBC 세션 저장소 앞에 두는 near-cache.
+ * findById    역직렬화된 세션을 로컬 캐시(maximumSize, timeToLive)에 보관해서 매 요청마다 SPRING_SESSION 테이블을 읽지 않는다.
+ *             속성은 JDBC 저장소와 같이 직렬화한 byte[] 로 보관하고 꺼낼때마다 역직렬화한다, 동시 요청끼리 속성 객체(SecurityContextImpl, SessionUser 등)를 공유하지 않는다.
+ *             save 할때는 바뀐 속성만 다시 직렬화한다.
+ * save        새 세션, 세션 id 변경, 속성 변경이 있을때만 DB 에 쓰고 변경된 속성만 반영한다.
+ *             lastAccessedTime 만 바뀐 경우는 lastAccessedWriteInterval 이 지났을때만 쓴다. (write-coalescing)
+ *             그만큼 DB 의 만료 시간이 늦게 갱신되기 때문에 interval 은 세션 만료 시간보다 충분히 짧아야 한다.
+ * 여러 서버가 같은 세션을 동시에 쓰면 timeToLive 만큼 다른 서버의 변경이 늦게 보일수 있다.
+ * 메트릭    session.store (operation 태그) 는 실제 세션 테이블을 읽고 쓴 시간, session.near-cache (result 태그) 는 캐시 적중 횟수이다.
+ * 종료      감싼 저장소의 destroy(만료 세션 정리 스케줄러 종료)를 위임한다, 빈을 감싸도 종료할때 정리 스레드가 남지 않는다.
+ */
+public class NearCacheSessionRepository implements FindByIndexNameSessionRepository<NearCacheSessionRepository.NearCachedSession>, DisposableBean {
+
+    private final FindByIndexNameSessionRepository<Session> sessionRepository;
+    private final Cache<String, CachedEntry> cache;
+    private final Duration lastAccessedWriteInterval;
+    private final Timer findTimer;
+    private final Timer saveTimer;
+    private final Timer deleteTimer;
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Converter<Object, byte[]> serializer = new SerializingConverter();
+    private final Converter<byte[], Object> deserializer = new DeserializingConverter(NearCacheSessionRepository.class.getClassLoader());
+    private final AtomicBoolean destroyed = new AtomicBoolean();
+
+    @SuppressWarnings("unchecked")
+    public NearCacheSessionRepository(FindByIndexNameSessionRepository<? extends Session> sessionRepository,
+                                      long maximumSize, Duration timeToLive, Duration lastAccessedWriteInterval,
+                                      MeterRegistry meterRegistry) {
+        this.sessionRepository = (FindByIndexNameSessionRepository<Session>) sessionRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive)
+                .build();
+        this.lastAccessedWriteInterval = lastAccessedWriteInterval;
+        this.findTimer = Timer.builder("session.store").tag("operation", "find").publishPercentileHistogram().register(meterRegistry);
+        this.saveTimer = Timer.builder("session.store").tag("operation", "save").publishPercentileHistogram().register(meterRegistry);
+        this.deleteTimer = Timer.builder("session.store").tag("operation", "delete").publishPercentileHistogram().register(meterRegistry);
+        this.hitCounter = Counter.builder("session.near-cache").tag("result", "hit").register(meterRegistry);
+        this.missCounter = Counter.builder("session.near-cache").tag("result", "miss").register(meterRegistry);
+        meterRegistry.gauge("session.near-cache.size", cache, Cache::estimatedSize);
+    }
+
+    @Override
+    public NearCachedSession createSession() {
+        Session session = sessionRepository.createSession();
+        return new NearCachedSession(new MapSession(session), null, session, null);
+    }
+
+    @Override
+    public void save(NearCachedSession session) {
+        Map<String, byte[]> attributes = serializeAttributes(session);
+        if (session.needsWrite()) {
+            Session target = session.resolvePersistentSession();
+            for (String name : session.changedAttributes) {
+                target.setAttribute(name, session.cached.getAttribute(name));
+            }
+            target.setMaxInactiveInterval(session.cached.getMaxInactiveInterval());
+            target.setLastAccessedTime(session.cached.getLastAccessedTime());
+            saveTimer.record(() -> sessionRepository.save(target));
+
+            session.persistedLastAccessedTime = session.cached.getLastAccessedTime();
+            session.changedAttributes.clear();
+            session.idChanged = false;
+            session.maxInactiveIntervalChanged = false;
+        }
+        cache.put(session.getId(), new CachedEntry(metadata(session.cached), attributes, session.persistedLastAccessedTime));
+    }
+
+    @Override
+    public NearCachedSession findById(String id) {
+        CachedEntry entry = cache.getIfPresent(id);
+        if (entry != null) {
+            if (!entry.metadata.isExpired()) {
+                hitCounter.increment();
+                return new NearCachedSession(restore(entry), entry.attributes, null, entry.persistedLastAccessedTime);
+            }
+            cache.invalidate(id);
+        }
+
+        missCounter.increment();
+        Session session = findTimer.record(() -> sessionRepository.findById(id));
+        if (session == null) {
+            return null;
+        }
+        Map<String, byte[]> attributes = serializeAll(session);
+        CachedEntry entry = new CachedEntry(metadata(session), attributes, session.getLastAccessedTime());
+        cache.put(id, entry);
+        return new NearCachedSession(new MapSession(session), attributes, session, session.getLastAccessedTime());
+    }
+
+    @Override
+    public void deleteById(String id) {
+        cache.invalidate(id);
+        deleteTimer.record(() -> sessionRepository.deleteById(id));
+    }
+
+    @Override
+    public Map<String, NearCachedSession> findByIndexNameAndIndexValue(String indexName, String indexValue) {
+        Map<String, Session> sessions = sessionRepository.findByIndexNameAndIndexValue(indexName, indexValue);
+        Map<String, NearCachedSession> result = new HashMap<>(sessions.size());
+        sessions.forEach((id, session) -> result.put(id, new NearCachedSession(new MapSession(session), null, session, session.getLastAccessedTime())));
+        return result;
+    }
+
+    public long cachedSessionCount() {
+        return cache.estimatedSize();
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        cache.invalidateAll();
+        if (destroyed.compareAndSet(false, true) && sessionRepository instanceof DisposableBean disposable) {
+            disposable.destroy();
+        }
+    }
+
+    /**
+     * 캐시에 넣을 직렬화된 속성, 이전에 직렬화한 값(serializedAttributes)이 있으면 바뀐 속성만 다시 직렬화한다.
+     */
+    private Map<String, byte[]> serializeAttributes(NearCachedSession session) {
+        Map<String, byte[]> attributes;
+        if (session.serializedAttributes == null) {
+            attributes = serializeAll(session.cached);
+        } else {
+            attributes = new HashMap<>(session.serializedAttributes);
+            for (String name : session.changedAttributes) {
+                Object value = session.cached.getAttribute(name);
+                if (value == null) {
+                    attributes.remove(name);
+                } else {
+                    attributes.put(name, serializer.convert(value));
+                }
+            }
+        }
+        session.serializedAttributes = attributes;
+        return attributes;
+    }
+
+    private Map<String, byte[]> serializeAll(Session session) {
+        Map<String, byte[]> attributes = new HashMap<>();
+        for (String name : session.getAttributeNames()) {
+            Object value = session.getAttribute(name);
+            if (value != null) {
+                attributes.put(name, serializer.convert(value));
+            }
+        }
+        return attributes;
+    }
+
+    /**
+     * 속성을 뺀 세션 정보(id, 생성/접근 시간, 만료 시간), 캐시에 넣은 뒤에는 바꾸지 않고 restore 에서 복사해서 쓴다.
+     */
+    private static MapSession metadata(Session session) {
+        MapSession metadata = new MapSession(session.getId());
+        metadata.setCreationTime(session.getCreationTime());
+        metadata.setLastAccessedTime(session.getLastAccessedTime());
+        metadata.setMaxInactiveInterval(session.getMaxInactiveInterval());
+        return metadata;
+    }
+
+    private MapSession restore(CachedEntry entry) {
+        MapSession session = new MapSession(entry.metadata);
+        entry.attributes.forEach((name, bytes) -> session.setAttribute(name, deserializer.convert(bytes)));
+        return session;
+    }
+
+    private record CachedEntry(MapSession metadata, Map<String, byte[]> attributes, Instant persistedLastAccessedTime) {
+    }
+
+    /**
+     * 요청 하나에서 사용하는 세션, 변경 내용은 cached 에만 반영하고 save 할때 DB 세션(persistentSession)에 옮긴다.
+     * persistentSession 은 DB 에 써야 할때만 조회한다.
+     */
+    public final class NearCachedSession implements Session {
+
+        private final MapSession cached;
+        private final Set<String> changedAttributes = new HashSet<>();
+        private Map<String, byte[]> serializedAttributes;
+        private Session persistentSession;
+        private Instant persistedLastAccessedTime;
+        private boolean idChanged;
+        private boolean maxInactiveIntervalChanged;
+
+        private NearCachedSession(MapSession cached, Map<String, byte[]> serializedAttributes, Session persistentSession,
+                                  Instant persistedLastAccessedTime) {
+            this.cached = cached;
+            this.serializedAttributes = serializedAttributes;
+            this.persistentSession = persistentSession;
+            this.persistedLastAccessedTime = persistedLastAccessedTime;
+        }
+
+        private boolean needsWrite() {
+            if (persistedLastAccessedTime == null || idChanged || maxInactiveIntervalChanged || !changedAttributes.isEmpty()) {
+                return true;
+            }
+            return Duration.between(persistedLastAccessedTime, cached.getLastAccessedTime()).compareTo(lastAccessedWriteInterval) >= 0;
+        }
+
+        /**
+         * 캐시에서 꺼낸 세션이 그사이 DB 에서 만료/삭제 되었다면 새 세션을 만들어 속성을 모두 옮긴다.
+         * 이 경우 세션 id 가 바뀌고, SessionRepositoryFilter 가 바뀐 id 로 쿠키를 다시 내려준다.
+         */
+        private Session resolvePersistentSession() {
+            if (persistentSession == null) {
+                persistentSession = findTimer.record(() -> sessionRepository.findById(cached.getId()));
+            }
+            if (persistentSession == null) {
+                Session fresh = sessionRepository.createSession();
+                cache.invalidate(cached.getId());
+                cached.setId(fresh.getId());
+                changedAttributes.addAll(cached.getAttributeNames());
+                persistentSession = fresh;
+            }
+            return persistentSession;
+        }
+
+        @Override
+        public String getId() {
+            return cached.getId();
+        }
+
+        @Override
+        public String changeSessionId() {
+            Session target = resolvePersistentSession();
+            String oldId = cached.getId();
+            String newId = target.changeSessionId();
+            cache.invalidate(oldId);
+            cached.setId(newId);
+            idChanged = true;
+            return newId;
+        }
+
+        @Override
+        public <T> T getAttribute(String attributeName) {
+            return cached.getAttribute(attributeName);
+        }
+
+        @Override
+        public Set<String> getAttributeNames() {
+            return cached.getAttributeNames();
+        }
+
+        @Override
+        public void setAttribute(String attributeName, Object attributeValue) {
+            cached.setAttribute(attributeName, attributeValue);
+            changedAttributes.add(attributeName);
+        }
+
+        @Override
+        public void removeAttribute(String attributeName) {
+            cached.removeAttribute(attributeName);
+            changedAttributes.add(attributeName);
+        }
+
+        @Override
+        public Instant getCreationTime() {
+            return cached.getCreationTime();
+        }
+
+        @Override
+        public void setLastAccessedTime(Instant lastAccessedTime) {
+            cached.setLastAccessedTime(lastAccessedTime);
+        }
+
+        @Override
+        public Instant getLastAccessedTime() {
+            return cached.getLastAccessedTime();
+        }
+
+        @Override
+        public void setMaxInactiveInterval(Duration interval) {
+            cached.setMaxInactiveInterval(interval);
+            maxInactiveIntervalChanged = true;
+        }
+
+        @Override
+        public Duration getMaxInactiveInterval() {
+            return cached.getMaxInactiveInterval();
+        }
+
+        @Override
+        public boolean isExpired() {
+            return cached.isExpired();
+        }
+    }
+}
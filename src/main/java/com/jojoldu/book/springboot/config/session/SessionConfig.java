@@ -0,0 +1,40 @@
+package com.jojoldu.book.springboot.config.session;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.session.jdbc.JdbcIndexedSessionRepository;
+
+import java.time.Duration;
+
+/**
+ * 스프링 부트가 만든 JdbcIndexedSessionRepository 를 NearCacheSessionRepository 로 감싼다.
+ * SessionRepository 빈을 직접 등록하면 부트의 JDBC 세션 자동 설정(테이블 초기화, spring.session.jdbc.* 설정)이 꺼지기 때문에 BeanPostProcessor 를 사용한다.
+ * BeanPostProcessor 는 다른 빈보다 먼저 만들어져야 하므로 static 으로 선언한다.
+ * 감싼 NearCacheSessionRepository 는 DisposableBean 으로 원래 저장소의 destroy 를 한번만 위임한다.
+ */
+@Configuration
+public class SessionConfig {
+
+    @Bean
+    public static BeanPostProcessor nearCacheSessionRepositoryPostProcessor(
+            @Value("${session.near-cache.maximum-size:10000}") long maximumSize,
+            @Value("${session.near-cache.time-to-live:60s}") Duration timeToLive,
+            @Value("${session.near-cache.last-accessed-write-interval:60s}") Duration lastAccessedWriteInterval,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof JdbcIndexedSessionRepository sessionRepository) {
+                    return new NearCacheSessionRepository(sessionRepository, maximumSize, timeToLive, lastAccessedWriteInterval,
+                            meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
+                }
+                return bean;
+            }
+        };
+    }
+}
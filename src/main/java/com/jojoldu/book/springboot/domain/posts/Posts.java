@@ -5,12 +5,29 @@ import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 
+/**
+ * '@SequenceGenerator'    IDENTITY 는 insert 를 해야 id 를 알수 있어서 하이버네이트가 insert 를 배치로 묶지 못한다.
+ *                         시퀀스는 allocationSize 만큼 id 를 미리 할당(pooled)해서 insert 를 JDBC 배치로 보낼수 있다.
+ *                         MySQL 방언은 시퀀스를 지원하지 않아서 posts_seq 테이블(next_val 한 행)로 대신 동작한다.
+ *                         테스트도 H2 에 MySQL 방언을 사용하기 때문에 네이티브 시퀀스가 아닌 같은 테이블을 사용한다.
+ *                         기존 MySQL 에는 db/mysql/005_posts_seq.sql 로 만들고 max(id) 이후부터 시작하게 채운다.
+ * '@Index'                (author, id desc) 복합 인덱스, 작성자별 목록을 인덱스 순서대로 읽어서 정렬 없이 필요한 만큼만 가져온다.
+ *                         기존 MySQL 에는 db/mysql/019_posts_author_index.sql 로 만든다.
+ *                         (modifiedDate, id) 인덱스, 검색 색인이 다른 서버에서 바뀐 게시글만 읽어간다. 기존 MySQL 에는 db/mysql/013_posts_modified_date_index.sql 로 만든다.
+ * '@Version'              낙관적 락, 수정할때마다 1씩 증가한다. 벌크 update 는 PostsRepository 에서 직접 증가시키고 비교한다.
+ *                         기존 MySQL 에는 db/mysql/017_posts_version.sql 로 컬럼을 추가한다. (기존 게시글은 0)
+ */
 @Getter
 @Entity
+@Table(indexes = {
+        @Index(name = "ix_posts_author_id", columnList = "author, id desc"),
+        @Index(name = "ix_posts_modified_date", columnList = "modifiedDate, id")})
 @NoArgsConstructor
 public class Posts extends BaseTimeEntity{
 
-    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "posts_seq_generator")
+    @SequenceGenerator(name = "posts_seq_generator", sequenceName = "posts_seq", allocationSize = 50)
     private Long id;
 
     @Column(length = 500, nullable = false)
@@ -21,6 +38,10 @@ public class Posts extends BaseTimeEntity{
 
     private String author;
 
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
     @Builder
     public Posts(String title, String content, String author) {
         this.title = title;
@@ -0,0 +1,11 @@
+package com.jojoldu.book.springboot.domain.posts;
+
+/**
+ * 작성자별 게시글 수 집계 결과, PostsRepository.countGroupByAuthor 의 select 별칭(author, count)과 이름을 맞춘다.
+ */
+public interface PostsAuthorCount {
+
+    String getAuthor();
+
+    Long getCount();
+}
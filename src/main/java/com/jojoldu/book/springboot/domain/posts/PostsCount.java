@@ -0,0 +1,37 @@
+package com.jojoldu.book.springboot.domain.posts;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * 게시글 수 요약 테이블, 전체 게시글 수(total)와 작성자별 게시글 수(author:이름)를 한 행씩 저장한다.
+ * 요청마다 COUNT(*) 를 실행하지 않도록 PostsCounter 가 주기적으로 증감분을 더하고, 전체 재계산 작업이 다시 맞춘다.
+ * 기존 MySQL 에는 db/mysql/020_posts_count.sql 로 테이블을 만들고 현재 게시글 수로 채운다.
+ */
+@Getter
+@Entity
+@NoArgsConstructor
+public class PostsCount {
+
+    public static final String TOTAL = "total";
+    private static final String AUTHOR_PREFIX = "author:";
+
+    @Id
+    @Column(name = "counter_key", length = 300)
+    private String key;
+
+    @Column(name = "post_count", nullable = false)
+    private long count;
+
+    public PostsCount(String key, long count) {
+        this.key = key;
+        this.count = count;
+    }
+
+    public static String authorKey(String author) {
+        return AUTHOR_PREFIX + author;
+    }
+}
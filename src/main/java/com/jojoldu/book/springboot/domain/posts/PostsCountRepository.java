@@ -0,0 +1,41 @@
+package com.jojoldu.book.springboot.domain.posts;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+/**
+ * addCount             조회 없이 현재 값에 증감분을 더한다, 여러 서버가 동시에 더해도 값을 덮어쓰지 않는다. 행이 없으면 0 을 반환한다.
+ * findByKeyForUpdate   select ... for update 로 행 락을 잡는다, flush 와 재계산은 항상 total 행을 먼저 잠가서 서버끼리 차례로 실행된다.
+ *                      (행을 새로 insert 하는 것도 total 락을 잡은 트랜잭션만 하기 때문에 같은 키를 동시에 insert 하지 않는다)
+ * setCount             재계산한 값으로 덮어쓴다, 행이 없으면 0 을 반환한다.
+ * resetCounts,         재계산 전에 모두 0 으로 만들고, 재계산 후에도 0 인 작성자 행(글이 모두 지워진 작성자)은 지운다.
+ * deleteEmptyAuthorCounts
+ */
+public interface PostsCountRepository extends JpaRepository<PostsCount, String> {
+
+    @Modifying
+    @Query("update PostsCount c set c.count = c.count + :delta where c.key = :key")
+    int addCount(@Param("key") String key, @Param("delta") long delta);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select c from PostsCount c where c.key = :key")
+    Optional<PostsCount> findByKeyForUpdate(@Param("key") String key);
+
+    @Modifying
+    @Query("update PostsCount c set c.count = :count where c.key = :key")
+    int setCount(@Param("key") String key, @Param("count") long count);
+
+    @Modifying
+    @Query("update PostsCount c set c.count = 0")
+    int resetCounts();
+
+    @Modifying
+    @Query("delete from PostsCount c where c.count = 0 and c.key <> '" + PostsCount.TOTAL + "'")
+    int deleteEmptyAuthorCounts();
+}
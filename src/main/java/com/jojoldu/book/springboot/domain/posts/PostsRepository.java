@@ -1,13 +1,96 @@
 package com.jojoldu.book.springboot.domain.posts;
 
+import com.jojoldu.book.springboot.web.dto.PostsListResponseDto;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
+/**
+ * findFirstPageDesc, findPageDesc    id 를 기준으로 하는 키셋(커서) 페이징, offset 을 사용하지 않기 때문에 몇번째 페이지든 비용이 같다.
+ *                                    Pageable 은 limit 용도로만 사용한다. (PageRequest.of(0, size))
+ * findFirstPageByAuthorDesc,         작성자별 키셋 페이징, ix_posts_author_id(author, id desc) 인덱스의 범위만 읽는다.
+ * findPageByAuthorDesc
+ * 'select new ...'                   생성자 표현식으로 목록에 필요한 컬럼만 DTO 로 바로 조회한다.
+ *                                    엔티티가 아니기 때문에 content 를 읽지 않고, 영속성 컨텍스트 등록과 변경감지용 스냅샷도 만들지 않는다.
+ * '@Modifying'                       조회 없이 update / delete 한 문장으로 처리하고 영향받은 row 수를 반환한다.
+ *                                    벌크 연산은 Auditing 이 동작하지 않기 때문에 modifiedDate 를 직접 넣어준다.
+ *                                    clearAutomatically 는 실행 후 영속성 컨텍스트를 비워서 이전 값이 남지 않게 한다.
+ * updateTitleAndContentIfVersionIn   versions 중 하나일때만 수정한다(compare-and-set), 다른 요청이 먼저 수정했다면 0 을 반환한다.
+ *                                    조회 후 수정하지 않고 한 문장으로 처리하기 때문에 select ... for update 같은 row 락을 미리 잡지 않는다.
+ * findByIdGreaterThanOrderByIdAsc    검색 색인을 만들때 id 순서로 나눠서 읽는다.
+ * findModifiedAfter                  검색 색인 동기화용, (modifiedDate, id) 키셋으로 나눠서 읽는다. ix_posts_modified_date 인덱스의 범위만 읽는다.
+ * findIdsAfter                       검색 색인에서 다른 서버가 지운 게시글을 찾을때 PK 인덱스만 id 순서로 읽는다.
+ * countGroupByAuthor                 게시글 수 전체 재계산용, 작성자 인덱스로 집계한다.
+ * streamByIdGreaterThan              List 로 모두 올리지 않고 커서로 fetchSize 만큼씩 받아오면서 읽는다, 반드시 트랜잭션 안에서 try-with-resources 로 닫아야 한다.
+ *                                    readOnly 힌트로 변경감지용 스냅샷을 만들지 않는다.
+ */
 public interface PostsRepository extends JpaRepository<Posts,Long> {
 
-    @Query("select p from Posts p order by p.id desc ")
-    List<Posts> findAllDesc();
+    int EXPORT_FETCH_SIZE = 500;
+
+    @Query("select new com.jojoldu.book.springboot.web.dto.PostsListResponseDto(p.id, p.title, p.author, p.modifiedDate) " +
+            "from Posts p order by p.id desc ")
+    List<PostsListResponseDto> findFirstPageDesc(Pageable pageable);
+
+    @Query("select new com.jojoldu.book.springboot.web.dto.PostsListResponseDto(p.id, p.title, p.author, p.modifiedDate) " +
+            "from Posts p where p.id < :cursor order by p.id desc ")
+    List<PostsListResponseDto> findPageDesc(@Param("cursor") Long cursor, Pageable pageable);
+
+    @Query("select new com.jojoldu.book.springboot.web.dto.PostsListResponseDto(p.id, p.title, p.author, p.modifiedDate) " +
+            "from Posts p where p.author = :author order by p.id desc ")
+    List<PostsListResponseDto> findFirstPageByAuthorDesc(@Param("author") String author, Pageable pageable);
+
+    @Query("select new com.jojoldu.book.springboot.web.dto.PostsListResponseDto(p.id, p.title, p.author, p.modifiedDate) " +
+            "from Posts p where p.author = :author and p.id < :cursor order by p.id desc ")
+    List<PostsListResponseDto> findPageByAuthorDesc(@Param("author") String author, @Param("cursor") Long cursor, Pageable pageable);
+
+    @Query("select new com.jojoldu.book.springboot.web.dto.PostsListResponseDto(p.id, p.title, p.author, p.modifiedDate) " +
+            "from Posts p where p.id in :ids")
+    List<PostsListResponseDto> findListByIdIn(@Param("ids") Collection<Long> ids);
+
+    List<Posts> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    @Query("select p from Posts p where p.modifiedDate > :since or (p.modifiedDate = :since and p.id > :id) " +
+            "order by p.modifiedDate asc, p.id asc")
+    List<Posts> findModifiedAfter(@Param("since") LocalDateTime since, @Param("id") Long id, Pageable pageable);
+
+    @Query("select p.id from Posts p where p.id > :after order by p.id asc")
+    List<Long> findIdsAfter(@Param("after") Long after, Pageable pageable);
+
+    @Query("select p.author as author, count(p) as count from Posts p where p.author is not null group by p.author")
+    List<PostsAuthorCount> countGroupByAuthor();
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select p from Posts p where p.id > :afterId order by p.id asc")
+    Stream<Posts> streamByIdGreaterThan(@Param("afterId") Long afterId);
+
+    @Modifying(clearAutomatically = true)
+    @Query("update Posts p set p.title = :title, p.content = :content, p.modifiedDate = :now, p.version = p.version + 1 " +
+            "where p.id = :id")
+    int updateTitleAndContent(@Param("id") Long id, @Param("title") String title,
+                              @Param("content") String content, @Param("now") LocalDateTime now);
+
+    @Modifying(clearAutomatically = true)
+    @Query("update Posts p set p.title = :title, p.content = :content, p.modifiedDate = :now, p.version = p.version + 1 " +
+            "where p.id = :id and p.version in :versions")
+    int updateTitleAndContentIfVersionIn(@Param("id") Long id, @Param("versions") Collection<Long> versions, @Param("title") String title,
+                                         @Param("content") String content, @Param("now") LocalDateTime now);
+
+    @Modifying(clearAutomatically = true)
+    @Query("delete from Posts p where p.id in :ids")
+    int deleteAllByIdIn(@Param("ids") Collection<Long> ids);
 
 }
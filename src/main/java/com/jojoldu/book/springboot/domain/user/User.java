@@ -6,10 +6,16 @@ import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 
+import java.util.Objects;
+
+/**
+ * 로그인 할때마다 email 로 조회하기 때문에 email 에 unique 인덱스를 둔다.
+ * 기존 MySQL 에는 db/mysql/008_member_email_unique.sql 로 중복 email 을 정리한 뒤 만든다.
+ */
 @Getter
 @NoArgsConstructor
 @Entity
-@Table(name = "Member")
+@Table(name = "Member", indexes = @Index(name = "ux_member_email", columnList = "email", unique = true))
 public class User extends BaseTimeEntity {
 
     @Id
@@ -38,11 +44,18 @@ public class User extends BaseTimeEntity {
     }
 
     public User update(String name, String picture){
+        if (isSameProfile(name, picture)) {
+            return this;
+        }
         this.name = name;
         this.picture = picture;
         return this;
     }
 
+    public boolean isSameProfile(String name, String picture){
+        return Objects.equals(this.name, name) && Objects.equals(this.picture, picture);
+    }
+
     public String getRoleKey(){
         return this.role.getKey();
     }
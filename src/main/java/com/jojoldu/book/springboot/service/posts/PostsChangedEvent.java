@@ -0,0 +1,23 @@
+package com.jojoldu.book.springboot.service.posts;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+/**
+ * PostsService 에서 게시글이 등록/수정/삭제 될때 발행하는 이벤트.
+ * '@TransactionalEventListener' 로 받으면 트랜잭션이 커밋된 이후에만 전달된다.
+ * 여러건을 한번에 등록/삭제한 경우에도 이벤트는 한번만 발행하고 ids 에 모두 담는다.
+ */
+@Getter
+@RequiredArgsConstructor
+public class PostsChangedEvent {
+
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+
+    private final Type type;
+    private final List<Long> ids;
+}
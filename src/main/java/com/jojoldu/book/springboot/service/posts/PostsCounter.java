@@ -0,0 +1,228 @@
+package com.jojoldu.book.springboot.service.posts;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.jojoldu.book.springboot.domain.posts.PostsAuthorCount;
+import com.jojoldu.book.springboot.domain.posts.PostsCount;
+import com.jojoldu.book.springboot.domain.posts.PostsCountRepository;
+import com.jojoldu.book.springboot.domain.posts.PostsRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 전체 / 작성자별 게시글 수, 요청마다 COUNT(*) 를 실행하지 않고 요약 테이블(PostsCount) 값 + 아직 반영하지 않은 증감분으로 계산한다.
+ * 증감분    PostsService 가 등록/삭제 트랜잭션이 커밋된 뒤에 LongAdder 에 더한다, LongAdder 는 스레드마다 셀을 나눠서 동시에 더해도 경합하지 않는다.
+ * flush     flush-interval 마다 증감분을 요약 테이블에 더하고(한 트랜잭션), 더한 만큼 증감분에서 뺀다.
+ * 캐시      요약 테이블 값은 max-staleness 동안 캐시한다, 다른 서버가 flush 한 값은 최대 flush-interval + max-staleness 늦게 보인다.
+ * recount   전체 재계산, 요약 테이블을 실제 COUNT 로 다시 채운다. 처음 시작할때 total 행이 없으면 한번 실행한다.
+ *           다른 서버에 아직 flush 하지 않은 증감분이 있으면 그만큼 어긋날수 있기 때문에 트래픽이 적은 시간(recount-cron)에 실행한다.
+ * 삭제      삭제된 건수만 알기 때문에 전체 수만 바로 빼고, 작성자별 수는 다음 recount 까지 삭제 전 값으로 남는다.
+ * 락        flush 와 recount 는 트랜잭션을 시작하면서 total 행을 먼저 잠근다(select ... for update), 여러 서버가 동시에 실행해도 차례로 실행되고
+ *           같은 키를 동시에 insert 하거나 재계산 도중의 값에 증감분을 더하지 않는다. 운영 DB 의 테이블은 db/mysql/020_posts_count.sql 로 만든다.
+ */
+@Slf4j
+@Component
+public class PostsCounter {
+
+    private static final long MAXIMUM_CACHED_KEYS = 100_000;
+
+    private final PostsCountRepository postsCountRepository;
+    private final PostsRepository postsRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<String, LongAdder> pending = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final LoadingCache<String, Long> persisted;
+
+    public PostsCounter(PostsCountRepository postsCountRepository, PostsRepository postsRepository,
+                        PlatformTransactionManager transactionManager,
+                        @Value("${posts.counter.max-staleness:5s}") Duration maxStaleness) {
+        this.postsCountRepository = postsCountRepository;
+        this.postsRepository = postsRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.persisted = Caffeine.newBuilder()
+                .expireAfterWrite(maxStaleness)
+                .maximumSize(MAXIMUM_CACHED_KEYS)
+                .build(key -> postsCountRepository.findById(key).map(PostsCount::getCount).orElse(0L));
+    }
+
+    public long total() {
+        return count(PostsCount.TOTAL);
+    }
+
+    public long countByAuthor(String author) {
+        return count(PostsCount.authorKey(author));
+    }
+
+    /**
+     * 등록된 게시글의 작성자 목록(게시글 하나에 한개, null 가능)을 받는다.
+     */
+    public void created(List<String> authors) {
+        afterCommit(deltas(authors, 1));
+    }
+
+    /**
+     * 실제로 삭제된 건수를 받는다, 삭제는 작성자를 조회하지 않고 delete 한 문장으로 끝나기 때문에 어느 작성자의 글이 지워졌는지 알수 없다.
+     * 전체 수만 빼고 작성자별 수는 재계산(recount-cron)으로 맞춘다, 그때까지 작성자별 수는 삭제된 만큼 크게 보일수 있다.
+     */
+    public void deleted(int deleted) {
+        if (deleted > 0) {
+            afterCommit(Map.of(PostsCount.TOTAL, (long) -deleted));
+        }
+    }
+
+    /**
+     * 같은 서버의 flush 와 recount 는 flushLock 으로 차례로 실행한다, 스케줄러와 다른 호출(시작할때 재계산 등)이 같은 증감분을 읽어서 두번 더하지 않게 한다.
+     * 반영 후 0 이 된 작성자 증감분은 맵에서 지운다, 한번이라도 글을 쓴 모든 작성자의 LongAdder 가 계속 남지 않게 한다.
+     */
+    @Scheduled(fixedDelayString = "${posts.counter.flush-interval:1s}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            flushPending();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void flushPending() {
+        Map<String, Long> deltas = new HashMap<>();
+        pending.forEach((key, adder) -> {
+            long delta = adder.sum();
+            if (delta != 0) {
+                deltas.put(key, delta);
+            }
+        });
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            postsCountRepository.findByKeyForUpdate(PostsCount.TOTAL);
+            deltas.forEach((key, delta) -> {
+                if (postsCountRepository.addCount(key, delta) == 0) {
+                    postsCountRepository.save(new PostsCount(key, delta));
+                }
+            });
+        });
+        deltas.forEach((key, delta) -> {
+            pending.get(key).add(-delta);
+            persisted.invalidate(key);
+            if (!PostsCount.TOTAL.equals(key)) {
+                pending.computeIfPresent(key, (k, adder) -> adder.sum() == 0 ? null : adder);
+            }
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        if (postsCountRepository.existsById(PostsCount.TOTAL)) {
+            return;
+        }
+        // 잠글 total 행부터 만든다, 여러 서버가 같이 시작하면 한 서버만 insert 하고 나머지는 재계산을 차례로 기다린다
+        try {
+            transactionTemplate.executeWithoutResult(status -> postsCountRepository.saveAndFlush(new PostsCount(PostsCount.TOTAL, 0)));
+        } catch (DataIntegrityViolationException e) {
+            log.debug("posts count total row already created by another server");
+        }
+        recount();
+    }
+
+    @Scheduled(cron = "${posts.counter.recount-cron:0 0 4 * * *}")
+    public void recount() {
+        flushLock.lock();
+        try {
+            recountLocked();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void recountLocked() {
+        long startedAt = System.currentTimeMillis();
+        flushPending();
+        transactionTemplate.executeWithoutResult(status -> {
+            postsCountRepository.findByKeyForUpdate(PostsCount.TOTAL);
+            Map<String, Long> counts = new LinkedHashMap<>();
+            counts.put(PostsCount.TOTAL, postsRepository.count());
+            for (PostsAuthorCount authorCount : postsRepository.countGroupByAuthor()) {
+                counts.put(PostsCount.authorKey(authorCount.getAuthor()), authorCount.getCount());
+            }
+            postsCountRepository.resetCounts();
+            counts.forEach((key, count) -> {
+                if (postsCountRepository.setCount(key, count) == 0) {
+                    postsCountRepository.save(new PostsCount(key, count));
+                }
+            });
+            postsCountRepository.deleteEmptyAuthorCounts();
+        });
+        persisted.invalidateAll();
+        log.info("posts counts recounted. elapsed={}ms", System.currentTimeMillis() - startedAt);
+    }
+
+    private long count(String key) {
+        LongAdder adder = pending.get(key);
+        return persisted.get(key) + (adder == null ? 0 : adder.sum());
+    }
+
+    private static Map<String, Long> deltas(List<String> authors, long sign) {
+        Map<String, Long> deltas = new HashMap<>();
+        deltas.put(PostsCount.TOTAL, sign * authors.size());
+        for (String author : authors) {
+            if (author != null) {
+                deltas.merge(PostsCount.authorKey(author), sign, Long::sum);
+            }
+        }
+        return deltas;
+    }
+
+    /**
+     * total 은 지우지 않기 때문에 LongAdder 에 바로 더한다(등록마다 경합하는 키).
+     * 작성자 키는 flush 가 0 이 된 항목을 지우기 때문에 compute 안에서 더한다, 지우는 중인 LongAdder 에 더해서 증감분을 잃지 않게 한다.
+     */
+    private void addPending(String key, long delta) {
+        if (PostsCount.TOTAL.equals(key)) {
+            pending.computeIfAbsent(key, k -> new LongAdder()).add(delta);
+            return;
+        }
+        pending.compute(key, (k, adder) -> {
+            LongAdder target = adder == null ? new LongAdder() : adder;
+            target.add(delta);
+            return target;
+        });
+    }
+
+    /**
+     * 롤백된 트랜잭션의 증감분이 남지 않도록 커밋된 뒤에 더한다, 트랜잭션 밖에서 호출하면 바로 더한다.
+     */
+    private void afterCommit(Map<String, Long> deltas) {
+        Runnable apply = () -> deltas.forEach(this::addPending);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,198 @@
+package com.jojoldu.book.springboot.service.posts;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.jojoldu.book.springboot.web.dto.PostsImportResponseDto;
+import com.jojoldu.book.springboot.web.dto.PostsSaveRequestDto;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * NDJSON(한줄에 게시글 하나)을 한줄씩 읽어서 chunkSize 건마다 PostsService.saveAll 로 커밋한다.
+ * 청크 하나가 트랜잭션 하나이고, 메모리에는 현재 청크와 한줄 버퍼만 남기 때문에 파일 크기와 관계없이 사용량이 일정하다.
+ * 형식이 잘못되었거나 검증에 실패한 줄은 건너뛰고 줄 번호와 함께 errors 에 남긴다, 커밋에 실패한 청크는 그 청크의 모든 줄이 실패로 남는다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PostsImportService {
+
+    public static final int DEFAULT_CHUNK_SIZE = 500;
+    private static final int MAX_LINE_LENGTH = 64 * 1024;
+    private static final int MAX_REPORTED_ERRORS = 100;
+    private static final int TITLE_MAX_LENGTH = 500;
+    private static final int CONTENT_MAX_LENGTH = 500;
+    private static final int AUTHOR_MAX_LENGTH = 255;
+
+    private final PostsService postsService;
+    private final ObjectMapper objectMapper;
+
+    public PostsImportResponseDto importNdjson(InputStream inputStream, int chunkSize, Consumer<PostsImportResponseDto> progress) throws IOException {
+        int size = Math.min(Math.max(chunkSize, 1), PostsService.MAX_BATCH_SIZE);
+        ObjectReader reader = objectMapper.readerFor(PostsSaveRequestDto.class);
+        Progress state = new Progress();
+
+        List<PostsSaveRequestDto> chunk = new ArrayList<>(size);
+        List<Long> chunkLines = new ArrayList<>(size);
+        LineReader in = new LineReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        StringBuilder line = new StringBuilder();
+
+        while (in.readLine(line)) {
+            state.lines++;
+            if (line.length() > MAX_LINE_LENGTH) {
+                state.fail(state.lines, "한줄의 길이는 " + MAX_LINE_LENGTH + "자 까지 입니다.");
+                continue;
+            }
+            if (line.toString().isBlank()) {
+                continue;
+            }
+
+            try {
+                PostsSaveRequestDto requestDto = reader.readValue(line.toString());
+                String error = validate(requestDto);
+                if (error != null) {
+                    state.fail(state.lines, error);
+                    continue;
+                }
+                chunk.add(requestDto);
+                chunkLines.add(state.lines);
+            } catch (JsonProcessingException e) {
+                state.fail(state.lines, "JSON 형식이 아닙니다. " + e.getOriginalMessage());
+                continue;
+            }
+
+            if (chunk.size() == size) {
+                commit(chunk, chunkLines, state);
+                progress.accept(state.toResponse(false));
+            }
+        }
+        if (!chunk.isEmpty()) {
+            commit(chunk, chunkLines, state);
+        }
+
+        log.info("posts import finished. lines={}, imported={}, failed={}", state.lines, state.imported, state.failed);
+        return state.toResponse(true);
+    }
+
+    private void commit(List<PostsSaveRequestDto> chunk, List<Long> chunkLines, Progress state) {
+        try {
+            state.imported += postsService.saveAll(chunk).size();
+        } catch (DataAccessException | IllegalArgumentException e) {
+            log.warn("posts import chunk failed. lines={}-{}", chunkLines.get(0), chunkLines.get(chunkLines.size() - 1), e);
+            for (Long failedLine : chunkLines) {
+                state.fail(failedLine, "저장에 실패했습니다. " + e.getMessage());
+            }
+        }
+        chunk.clear();
+        chunkLines.clear();
+    }
+
+    private String validate(PostsSaveRequestDto requestDto) {
+        if (requestDto == null) {
+            return "게시글이 비어있습니다.";
+        }
+        if (requestDto.getTitle() == null || requestDto.getTitle().isBlank()) {
+            return "title 은 필수입니다.";
+        }
+        if (requestDto.getContent() == null || requestDto.getContent().isBlank()) {
+            return "content 는 필수입니다.";
+        }
+        if (requestDto.getTitle().length() > TITLE_MAX_LENGTH) {
+            return "title 은 " + TITLE_MAX_LENGTH + "자 까지 입니다.";
+        }
+        if (requestDto.getContent().length() > CONTENT_MAX_LENGTH) {
+            return "content 는 " + CONTENT_MAX_LENGTH + "자 까지 입니다.";
+        }
+        if (requestDto.getAuthor() != null && requestDto.getAuthor().length() > AUTHOR_MAX_LENGTH) {
+            return "author 는 " + AUTHOR_MAX_LENGTH + "자 까지 입니다.";
+        }
+        return null;
+    }
+
+    /**
+     * 한줄씩 읽는다, read(char[], int, int) 로 채운 배열에서 줄바꿈을 찾고 줄 단위로 한번에 복사한다.
+     * BufferedReader.read() 는 글자마다 lock 을 잡는 synchronized 호출이라 글자 단위로 읽지 않는다.
+     * MAX_LINE_LENGTH 를 넘는 부분은 버퍼에 담지 않고 줄 끝까지 건너뛴다, 넘었는지는 line 의 길이가 MAX_LINE_LENGTH + 1 인지로 판단한다.
+     */
+    private static final class LineReader {
+
+        private static final int BUFFER_SIZE = 8192;
+
+        private final Reader in;
+        private final char[] buffer = new char[BUFFER_SIZE];
+        private int position;
+        private int limit;
+
+        private LineReader(Reader in) {
+            this.in = in;
+        }
+
+        private boolean readLine(StringBuilder line) throws IOException {
+            line.setLength(0);
+            boolean read = false;
+            while (true) {
+                if (position == limit) {
+                    position = 0;
+                    limit = Math.max(in.read(buffer, 0, buffer.length), 0);
+                    if (limit == 0) {
+                        return read;
+                    }
+                }
+                read = true;
+                int start = position;
+                while (position < limit) {
+                    char c = buffer[position];
+                    if (c == '\n') {
+                        append(line, start, position);
+                        position++;
+                        return true;
+                    }
+                    if (c == '\r') {
+                        append(line, start, position);
+                        start = position + 1;
+                    }
+                    position++;
+                }
+                append(line, start, position);
+            }
+        }
+
+        private void append(StringBuilder line, int start, int end) {
+            int room = MAX_LINE_LENGTH + 1 - line.length();
+            if (room > 0 && end > start) {
+                line.append(buffer, start, Math.min(end - start, room));
+            }
+        }
+    }
+
+    private static final class Progress {
+
+        private long lines;
+        private long imported;
+        private long failed;
+        private final List<PostsImportResponseDto.LineError> errors = new ArrayList<>();
+
+        private void fail(long line, String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new PostsImportResponseDto.LineError(line, message));
+            }
+        }
+
+        private PostsImportResponseDto toResponse(boolean done) {
+            return new PostsImportResponseDto(lines, imported, failed, done, List.copyOf(errors));
+        }
+    }
+}
@@ -0,0 +1,532 @@
+package com.jojoldu.book.springboot.service.posts;
+
+import com.jojoldu.book.springboot.domain.posts.Posts;
+import com.jojoldu.book.springboot.domain.posts.PostsRepository;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 게시글 제목, 본문 앞부분, 작성자에 대한 메모리 역색인.
+ * 토큰화    글자/숫자가 아닌 문자로 단어를 나누고 단어마다 2글자씩(bigram) 잘라서 색인한다, 형태소 분석 없이 한글 부분 검색이 가능하다.
+ *           단어의 마지막 글자도 한 글자로 색인해서, 모든 글자가 어떤 gram 의 첫 글자가 되게 한다.
+ * 검색      검색어의 모든 bigram 을 포함한 게시글만 찾고(AND), bigram 가중치(제목 3, 작성자 2, 본문 1) x idf 합으로 정렬한다.
+ *           한 글자 검색어는 그 글자로 시작하는 gram 을 모두 합쳐서 찾는다, 단어 중간의 글자도 찾는다. (gram 은 정렬된 TreeMap 이라 범위만 읽는다)
+ *           다음 페이지는 마지막 결과의 (점수, id) 를 커서로 받아서 그 뒤부터 top-k 를 다시 고른다.
+ * 갱신      시작한 뒤 별도 스레드에서 id 순서로 1000건씩 읽어서 색인한다, 시작을 막지 않고 그동안 검색은 PostsSearchNotReadyException(503)으로 응답한다.
+ *           이후에는 PostsService 가 발행하는 PostsChangedEvent(커밋 이후)로 바로 갱신한다.
+ * 동기화    이벤트는 이 서버의 변경만 알기 때문에 다른 서버의 변경은 DB 에서 따라잡는다.
+ *           sync-interval 마다 modifiedDate 가 마지막 동기화 - sync-lag 이후인 게시글을 다시 색인한다. (등록, 수정 모두 modifiedDate 가 바뀐다)
+ *           sync-lag 은 서버간 시계 차이와 늦게 커밋된 트랜잭션을 덮는다, 그 사이의 게시글은 여러번 다시 색인될 뿐이다.
+ *           삭제는 행이 남지 않기 때문에 reconcile-interval 마다 색인된 id 와 DB 의 id 를 비교해서 없는 게시글을 지운다.
+ *           다른 서버의 등록/수정은 최대 sync-interval, 삭제는 최대 reconcile-interval 늦게 반영된다.
+ * 힙        포스팅 목록은 id 로 정렬된 long[]/float[] 배열이라 박싱 없이 게시글당 gram 하나에 12바이트 + 게시글별 gram 참조 4바이트를 쓴다.
+ *           본문은 앞의 content-length 글자만 색인해서 게시글당 gram 수의 상한을 둔다, 0 이면 제목과 작성자만 색인한다.
+ *           예산은 게시글 수 x (제목 + 작성자 + content-length) 의 서로 다른 gram 수 x 약 16바이트로 잡는다.
+ *           (기본값 200 이면 게시글당 최대 약 4KB, 100만건에 약 4GB / 0 이면 약 0.5KB, 100만건에 약 0.5GB) 실제 값은 stats() 로 확인한다.
+ */
+@Slf4j
+@Component
+public class PostsSearchIndex {
+
+    private static final int GRAM_SIZE = 2;
+    private static final int BUILD_PAGE_SIZE = 1000;
+    private static final int RECONCILE_PAGE_SIZE = 10_000;
+    private static final float TITLE_WEIGHT = 3f;
+    private static final float AUTHOR_WEIGHT = 2f;
+    private static final float CONTENT_WEIGHT = 1f;
+
+    private final PostsRepository postsRepository;
+    private final int contentLength;
+    private final Duration syncLag;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<String, PostingList> postings = new TreeMap<>();
+    private final Map<Long, PostingList[]> documents = new HashMap<>();
+    private final Set<Long> removedWhileBuilding = new HashSet<>();
+    private boolean building;
+    private volatile boolean ready;
+    private volatile LocalDateTime syncedUntil;
+
+    public PostsSearchIndex(PostsRepository postsRepository,
+                            @Value("${posts.search.content-length:200}") int contentLength,
+                            @Value("${posts.search.sync-lag:30s}") Duration syncLag) {
+        this.postsRepository = postsRepository;
+        this.contentLength = Math.max(contentLength, 0);
+        this.syncLag = syncLag;
+    }
+
+    /**
+     * 색인은 시작 이후에 만든다, 게시글이 많아도 애플리케이션 시작(readiness)을 막지 않는다.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildAsync() {
+        Thread builder = new Thread(() -> {
+            try {
+                build();
+            } catch (RuntimeException e) {
+                log.error("posts search index build failed, search stays unavailable until restart", e);
+            }
+        }, "posts-search-index");
+        builder.setDaemon(true);
+        builder.start();
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    void build() {
+        long startedAt = System.currentTimeMillis();
+        syncedUntil = LocalDateTime.now(); // 만드는 동안 다른 서버에서 바뀐 게시글은 첫 동기화가 가져온다
+        setBuilding(true);
+        try {
+            Long lastId = 0L;
+            List<Posts> page;
+            do {
+                page = postsRepository.findByIdGreaterThanOrderByIdAsc(lastId, PageRequest.of(0, BUILD_PAGE_SIZE));
+                lock.writeLock().lock();
+                try {
+                    for (Posts posts : page) {
+                        if (!documents.containsKey(posts.getId()) && !removedWhileBuilding.contains(posts.getId())) {
+                            add(posts);
+                        }
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                if (!page.isEmpty()) {
+                    lastId = page.get(page.size() - 1).getId();
+                }
+            } while (page.size() == BUILD_PAGE_SIZE);
+        } finally {
+            setBuilding(false);
+        }
+        ready = true;
+        log.info("posts search index built. documents={}, elapsed={}ms", documents.size(), System.currentTimeMillis() - startedAt);
+    }
+
+    /**
+     * 마지막 동기화 이후(- sync-lag) 등록/수정된 게시글을 (modifiedDate, id) 순서로 나눠 읽어서 다시 색인한다.
+     */
+    @Scheduled(fixedDelayString = "${posts.search.sync-interval:10s}")
+    public void syncModified() {
+        if (!ready) {
+            return;
+        }
+        LocalDateTime startedAt = LocalDateTime.now();
+        LocalDateTime since = syncedUntil.minus(syncLag);
+        Long lastId = 0L;
+        List<Posts> page;
+        do {
+            page = postsRepository.findModifiedAfter(since, lastId, PageRequest.of(0, BUILD_PAGE_SIZE));
+            lock.writeLock().lock();
+            try {
+                for (Posts posts : page) {
+                    remove(posts.getId());
+                    add(posts);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            if (!page.isEmpty()) {
+                Posts last = page.get(page.size() - 1);
+                since = last.getModifiedDate();
+                lastId = last.getId();
+            }
+        } while (page.size() == BUILD_PAGE_SIZE);
+        syncedUntil = startedAt;
+    }
+
+    /**
+     * 색인된 id 를 먼저 복사한 뒤 DB 의 id 를 순서대로 읽으면서 비교한다, 복사한 뒤에 색인된 게시글은 비교하지 않기 때문에 지우지 않는다.
+     * 복사본은 게시글당 8바이트이고 DB 는 PK 인덱스만 읽는다.
+     */
+    @Scheduled(fixedDelayString = "${posts.search.reconcile-interval:5m}")
+    public void removeDeleted() {
+        if (!ready) {
+            return;
+        }
+        long[] indexed;
+        lock.readLock().lock();
+        try {
+            indexed = documents.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Long> deleted = new ArrayList<>();
+        int next = 0;
+        Long lastId = 0L;
+        List<Long> page;
+        do {
+            page = postsRepository.findIdsAfter(lastId, PageRequest.of(0, RECONCILE_PAGE_SIZE));
+            for (Long id : page) {
+                while (next < indexed.length && indexed[next] < id) {
+                    deleted.add(indexed[next++]);
+                }
+                if (next < indexed.length && indexed[next] == id) {
+                    next++;
+                }
+            }
+            if (!page.isEmpty()) {
+                lastId = page.get(page.size() - 1);
+            }
+        } while (page.size() == RECONCILE_PAGE_SIZE);
+        while (next < indexed.length) {
+            deleted.add(indexed[next++]);
+        }
+        if (deleted.isEmpty()) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            deleted.forEach(this::remove);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("posts search index removed posts deleted on other servers. count={}", deleted.size());
+    }
+
+    @TransactionalEventListener
+    public void onPostsChanged(PostsChangedEvent event) {
+        if (event.getType() == PostsChangedEvent.Type.DELETED) {
+            lock.writeLock().lock();
+            try {
+                for (Long id : event.getIds()) {
+                    remove(id);
+                    if (building) {
+                        removedWhileBuilding.add(id);
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return;
+        }
+
+        List<Posts> changed = postsRepository.findAllById(event.getIds());
+        lock.writeLock().lock();
+        try {
+            for (Posts posts : changed) {
+                remove(posts.getId());
+                add(posts);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public SearchResult search(String query, String cursor, int size) {
+        if (!ready) {
+            throw new PostsSearchNotReadyException("검색 색인을 만드는 중입니다. 잠시 후 다시 검색합니다.");
+        }
+        List<String> grams = new ArrayList<>(tokenize(query, 1f, false).keySet());
+        if (grams.isEmpty()) {
+            return new SearchResult(Collections.emptyList(), null);
+        }
+        Hit after = Hit.parse(cursor);
+        Comparator<Hit> ranking = Comparator.comparingDouble((Hit hit) -> hit.score).thenComparingLong(hit -> hit.id);
+        PriorityQueue<Hit> top = new PriorityQueue<>(size + 1, ranking);
+
+        lock.readLock().lock();
+        try {
+            List<PostingList> lists = new ArrayList<>(grams.size());
+            for (String gram : grams) {
+                PostingList list = gram.length() == 1 ? startingWith(gram) : postings.get(gram);
+                if (list == null) {
+                    return new SearchResult(Collections.emptyList(), null);
+                }
+                lists.add(list);
+            }
+            lists.sort(Comparator.comparingInt(list -> list.size));
+
+            int documentCount = documents.size();
+            float[] idf = new float[lists.size()];
+            for (int i = 0; i < lists.size(); i++) {
+                idf[i] = (float) Math.log(1 + (double) documentCount / lists.get(i).size);
+            }
+
+            PostingList shortest = lists.get(0);
+            candidates:
+            for (int c = 0; c < shortest.size; c++) {
+                long id = shortest.ids[c];
+                float score = shortest.weights[c] * idf[0];
+                for (int i = 1; i < lists.size(); i++) {
+                    int index = lists.get(i).indexOf(id);
+                    if (index < 0) {
+                        continue candidates;
+                    }
+                    score += lists.get(i).weights[index] * idf[i];
+                }
+                Hit hit = new Hit(score, id);
+                if (after != null && ranking.compare(hit, after) >= 0) {
+                    continue;
+                }
+                top.offer(hit);
+                if (top.size() > size + 1) {
+                    top.poll();
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Hit> hits = new ArrayList<>(top);
+        hits.sort(ranking.reversed());
+        boolean hasNext = hits.size() > size;
+        if (hasNext) {
+            hits = hits.subList(0, size);
+        }
+        List<Long> ids = hits.stream().map(hit -> hit.id).toList();
+        String nextCursor = hasNext ? hits.get(hits.size() - 1).toCursor() : null;
+        return new SearchResult(ids, nextCursor);
+    }
+
+    /**
+     * 배열 용량, 객체 헤더, 맵 엔트리를 더한 추정치이다. (64bit JVM, compressed oops 기준)
+     */
+    public Stats stats() {
+        lock.readLock().lock();
+        try {
+            long bytes = 0;
+            for (Map.Entry<String, PostingList> entry : postings.entrySet()) {
+                bytes += 32 + 40 + 2L * entry.getKey().length();
+                bytes += 24 + 2 * 16 + entry.getValue().ids.length * 12L;
+            }
+            for (PostingList[] lists : documents.values()) {
+                bytes += 32 + 16 + 16 + 4L * lists.length;
+            }
+            int documentCount = documents.size();
+            return new Stats(ready, documentCount, postings.size(), bytes, documentCount == 0 ? 0 : bytes / documentCount);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void setBuilding(boolean building) {
+        lock.writeLock().lock();
+        try {
+            this.building = building;
+            if (!building) {
+                removedWhileBuilding.clear();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void add(Posts posts) {
+        Map<String, Float> weights = tokenize(posts.getTitle(), TITLE_WEIGHT, true);
+        tokenize(posts.getAuthor(), AUTHOR_WEIGHT, true).forEach((gram, weight) -> weights.merge(gram, weight, Float::sum));
+        tokenize(head(posts.getContent()), CONTENT_WEIGHT, true).forEach((gram, weight) -> weights.merge(gram, weight, Float::sum));
+
+        PostingList[] lists = new PostingList[weights.size()];
+        int i = 0;
+        for (Map.Entry<String, Float> entry : weights.entrySet()) {
+            PostingList list = postings.computeIfAbsent(entry.getKey(), PostingList::new);
+            list.put(posts.getId(), entry.getValue());
+            lists[i++] = list;
+        }
+        documents.put(posts.getId(), lists);
+    }
+
+    private void remove(Long id) {
+        PostingList[] lists = documents.remove(id);
+        if (lists == null) {
+            return;
+        }
+        for (PostingList list : lists) {
+            list.remove(id);
+            if (list.size == 0) {
+                postings.remove(list.gram);
+            }
+        }
+    }
+
+    private String head(String content) {
+        if (content == null || content.length() <= contentLength) {
+            return content;
+        }
+        return content.substring(0, contentLength);
+    }
+
+    /**
+     * 한 글자 검색어용, 그 글자로 시작하는 gram 의 포스팅 목록을 합친다. 게시글에 여러 gram 이 있으면 가장 큰 가중치를 쓴다.
+     * 검색할때만 만드는 임시 목록이라 색인에는 넣지 않는다.
+     */
+    private PostingList startingWith(String prefix) {
+        Map<Long, Float> merged = new HashMap<>();
+        for (PostingList list : postings.subMap(prefix, true, prefix + Character.MAX_VALUE, true).values()) {
+            for (int i = 0; i < list.size; i++) {
+                merged.merge(list.ids[i], list.weights[i], Math::max);
+            }
+        }
+        if (merged.isEmpty()) {
+            return null;
+        }
+        long[] ids = merged.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+        PostingList union = new PostingList(prefix, ids.length);
+        for (long id : ids) {
+            union.ids[union.size] = id;
+            union.weights[union.size++] = merged.get(id);
+        }
+        return union;
+    }
+
+    /**
+     * tails 가 true 이면 단어의 마지막 글자도 한 글자 gram 으로 넣는다(색인용), 검색어는 bigram 만 만든다.
+     */
+    static Map<String, Float> tokenize(String text, float weight, boolean tails) {
+        Map<String, Float> grams = new LinkedHashMap<>();
+        if (text == null) {
+            return grams;
+        }
+        String lower = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean letter = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (letter && start < 0) {
+                start = i;
+            } else if (!letter && start >= 0) {
+                addGrams(lower.substring(start, i), weight, tails, grams);
+                start = -1;
+            }
+        }
+        return grams;
+    }
+
+    private static void addGrams(String token, float weight, boolean tails, Map<String, Float> grams) {
+        if (token.length() <= GRAM_SIZE) {
+            grams.merge(token, weight, Float::sum);
+        } else {
+            for (int i = 0; i + GRAM_SIZE <= token.length(); i++) {
+                grams.merge(token.substring(i, i + GRAM_SIZE), weight, Float::sum);
+            }
+        }
+        if (tails && token.length() > 1) {
+            grams.merge(token.substring(token.length() - 1), weight, Float::sum);
+        }
+    }
+
+    /**
+     * bigram 하나의 포스팅 목록, id 오름차순으로 정렬해두고 이진 탐색으로 찾는다.
+     * 새 게시글은 id 가 가장 크기 때문에 대부분 배열 끝에 추가된다.
+     */
+    private static final class PostingList {
+
+        private final String gram;
+        private long[] ids;
+        private float[] weights;
+        private int size;
+
+        private PostingList(String gram) {
+            this(gram, 4);
+        }
+
+        private PostingList(String gram, int capacity) {
+            this.gram = gram;
+            this.ids = new long[capacity];
+            this.weights = new float[capacity];
+        }
+
+        private int indexOf(long id) {
+            return Arrays.binarySearch(ids, 0, size, id);
+        }
+
+        private void put(long id, float weight) {
+            int index = indexOf(id);
+            if (index >= 0) {
+                weights[index] = weight;
+                return;
+            }
+            int insertAt = -index - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+            System.arraycopy(weights, insertAt, weights, insertAt + 1, size - insertAt);
+            ids[insertAt] = id;
+            weights[insertAt] = weight;
+            size++;
+        }
+
+        private void remove(long id) {
+            int index = indexOf(id);
+            if (index < 0) {
+                return;
+            }
+            System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+            System.arraycopy(weights, index + 1, weights, index, size - index - 1);
+            size--;
+        }
+    }
+
+    private record Hit(float score, long id) {
+
+        private String toCursor() {
+            return Integer.toHexString(Float.floatToIntBits(score)) + "_" + id;
+        }
+
+        private static Hit parse(String cursor) {
+            if (cursor == null || cursor.isBlank()) {
+                return null;
+            }
+            String[] parts = cursor.split("_");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("잘못된 검색 커서입니다. cursor=" + cursor);
+            }
+            try {
+                return new Hit(Float.intBitsToFloat(Integer.parseUnsignedInt(parts[0], 16)), Long.parseLong(parts[1]));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("잘못된 검색 커서입니다. cursor=" + cursor);
+            }
+        }
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class SearchResult {
+
+        private final List<Long> ids;
+        private final String nextCursor;
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class Stats {
+
+        private final boolean ready;
+        private final int documents;
+        private final int grams;
+        private final long estimatedBytes;
+        private final long bytesPerDocument;
+    }
+}
@@ -0,0 +1,15 @@
+package com.jojoldu.book.springboot.service.posts;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * 시작 후 검색 색인을 아직 만들고 있을때 던진다, 클라이언트는 잠시 후 다시 요청해야 한다.
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class PostsSearchNotReadyException extends RuntimeException {
+
+    public PostsSearchNotReadyException(String message) {
+        super(message);
+    }
+}
@@ -1,51 +1,240 @@
 package com.jojoldu.book.springboot.service.posts;
 
+import com.jojoldu.book.springboot.config.CacheConfig;
 import com.jojoldu.book.springboot.domain.posts.Posts;
 import com.jojoldu.book.springboot.domain.posts.PostsRepository;
+import com.jojoldu.book.springboot.web.dto.PostsExportDto;
 import com.jojoldu.book.springboot.web.dto.PostsListResponseDto;
+import com.jojoldu.book.springboot.web.dto.PostsPageResponseDto;
 import com.jojoldu.book.springboot.web.dto.PostsResponseDto;
 import com.jojoldu.book.springboot.web.dto.PostsSaveRequestDto;
+import com.jojoldu.book.springboot.web.dto.PostsSearchResponseDto;
 import com.jojoldu.book.springboot.web.dto.PostsUpdateRequestDto;
+import jakarta.persistence.EntityManager;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+@Timed("posts.service")
 @Service
 @RequiredArgsConstructor
 public class PostsService {
 
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+    public static final int MAX_BATCH_SIZE = 1000;
+    private static final int JDBC_BATCH_SIZE = 50;
+
     private final PostsRepository postsRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EntityManager entityManager;
+    private final PostsSearchIndex postsSearchIndex;
+    private final PostsCounter postsCounter;
 
     @Transactional
     public Long save(PostsSaveRequestDto requestDto) {
-        return postsRepository.save(requestDto.toEntity()).getId();
+        Long id = postsRepository.save(requestDto.toEntity()).getId();
+        postsCounter.created(Collections.singletonList(requestDto.getAuthor()));
+        eventPublisher.publishEvent(new PostsChangedEvent(PostsChangedEvent.Type.CREATED, List.of(id)));
+        return id;
+    }
+
+    /**
+     * hibernate.jdbc.batch_size 만큼 persist 한 뒤 flush 해서 insert 를 배치로 보내고, clear 로 영속성 컨텍스트가 커지지 않게 한다.
+     */
+    @Transactional
+    public List<Long> saveAll(List<PostsSaveRequestDto> requestDtos) {
+        if (requestDtos.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("한번에 등록할수 있는 게시글은 " + MAX_BATCH_SIZE + "개 까지 입니다. size=" + requestDtos.size());
+        }
+
+        List<Long> ids = new ArrayList<>(requestDtos.size());
+        for (PostsSaveRequestDto requestDto : requestDtos) {
+            Posts posts = requestDto.toEntity();
+            entityManager.persist(posts);
+            ids.add(posts.getId());
+            if (ids.size() % JDBC_BATCH_SIZE == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        postsCounter.created(requestDtos.stream().map(PostsSaveRequestDto::getAuthor).toList());
+        eventPublisher.publishEvent(new PostsChangedEvent(PostsChangedEvent.Type.CREATED, ids));
+        return ids;
     }
 
+    @Cacheable(cacheNames = CacheConfig.POSTS, key = "#id")
     public PostsResponseDto findById(Long id) {
         Posts posts = postsRepository.findById(id).orElseThrow(() -> new IllegalArgumentException("해당 개시물이 없습니다. id=" + id));
         return new PostsResponseDto(posts);
     }
 
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.POSTS, key = "#id")
     public Long update(Long id, PostsUpdateRequestDto requestDto){
-        Posts posts = postsRepository.findById(id).orElseThrow(() -> new IllegalArgumentException("해당 개시물이 없습니다. id=" + id));
-        posts.update(requestDto.getTitle(), requestDto.getContent());
+        return updateIfMatch(id, null, requestDto);
+    }
+
+    /**
+     * expectedVersion 이 있으면 그 버전일때만 수정하고, 이미 다른 버전이라면 PostsVersionConflictException 을 던진다.
+     */
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.POSTS, key = "#id")
+    public Long update(Long id, Long expectedVersion, PostsUpdateRequestDto requestDto){
+        return updateIfMatch(id, (expectedVersion == null) ? null : List.of(expectedVersion), requestDto);
+    }
+
+    /**
+     * If-Match 조건부 수정.
+     * expectedVersions 가 null 이면 조건 없이 수정하고, 게시글이 없으면 IllegalArgumentException 을 던진다.
+     * 비어 있으면(If-Match: *) 버전과 관계없이 수정하고, 아니면 그 중 한 버전일때만 수정한다.
+     * 조건이 있는데 수정된 행이 없으면(다른 버전이거나 게시글이 없으면) PostsVersionConflictException(412) 을 던진다.
+     */
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.POSTS, key = "#id")
+    public Long updateIfMatch(Long id, Collection<Long> expectedVersions, PostsUpdateRequestDto requestDto){
+        LocalDateTime now = LocalDateTime.now();
+        int updated = (expectedVersions == null || expectedVersions.isEmpty())
+                ? postsRepository.updateTitleAndContent(id, requestDto.getTitle(), requestDto.getContent(), now)
+                : postsRepository.updateTitleAndContentIfVersionIn(id, expectedVersions, requestDto.getTitle(), requestDto.getContent(), now);
+        if (updated == 0) {
+            if (expectedVersions != null) {
+                throw new PostsVersionConflictException(id, expectedVersions);
+            }
+            throw new IllegalArgumentException("해당 개시물이 없습니다. id=" + id);
+        }
+        eventPublisher.publishEvent(new PostsChangedEvent(PostsChangedEvent.Type.UPDATED, List.of(id)));
         return id;
     }
 
     @Transactional(readOnly = true)
-    public List<PostsListResponseDto> findAllDesc(){
-        return postsRepository.findAllDesc().stream().map(PostsListResponseDto::new).collect(Collectors.toList());
+    public PostsPageResponseDto findPageDesc(Long cursor, int size){
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+
+        List<PostsListResponseDto> posts = (cursor == null)
+                ? postsRepository.findFirstPageDesc(limit)
+                : postsRepository.findPageDesc(cursor, limit);
+        return toPage(posts, pageSize);
+    }
+
+    @Transactional(readOnly = true)
+    public PostsPageResponseDto findPageByAuthorDesc(String author, Long cursor, int size){
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+
+        List<PostsListResponseDto> posts = (cursor == null)
+                ? postsRepository.findFirstPageByAuthorDesc(author, limit)
+                : postsRepository.findPageByAuthorDesc(author, cursor, limit);
+        return toPage(posts, pageSize);
+    }
+
+    /**
+     * 검색 색인에서 순위대로 id 를 받고, 목록 컬럼만 한번에 조회해서 색인의 순서대로 다시 정렬한다.
+     * 색인은 커밋 이후에 갱신되기 때문에 그 사이에 삭제된 게시글은 결과에서 빠진다.
+     */
+    @Transactional(readOnly = true)
+    public PostsSearchResponseDto search(String query, String cursor, int size){
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        PostsSearchIndex.SearchResult result = postsSearchIndex.search(query, cursor, pageSize);
+        if (result.getIds().isEmpty()) {
+            return new PostsSearchResponseDto(List.of(), result.getNextCursor());
+        }
+
+        Map<Long, PostsListResponseDto> found = postsRepository.findListByIdIn(result.getIds()).stream()
+                .collect(Collectors.toMap(PostsListResponseDto::getId, Function.identity()));
+        List<PostsListResponseDto> posts = result.getIds().stream()
+                .map(found::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        return new PostsSearchResponseDto(posts, result.getNextCursor());
+    }
+
+    /**
+     * afterId 보다 큰 게시글을 id 순서대로 하나씩 consumer 에 넘긴다, 넘긴 엔티티는 바로 detach 해서 영속성 컨텍스트에 쌓이지 않게 한다.
+     * 중간에 끊기면 마지막으로 받은 id 를 afterId 로 다시 요청하면 이어서 받을수 있다.
+     */
+    @Transactional(readOnly = true)
+    public long export(Long afterId, Consumer<PostsExportDto> consumer){
+        long count = 0;
+        try (Stream<Posts> stream = postsRepository.streamByIdGreaterThan(afterId == null ? 0L : afterId)) {
+            Iterator<Posts> iterator = stream.iterator();
+            while (iterator.hasNext()) {
+                Posts posts = iterator.next();
+                consumer.accept(new PostsExportDto(posts));
+                entityManager.detach(posts);
+                count++;
+            }
+        }
+        return count;
     }
 
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.POSTS, key = "#id")
     public void delete(Long id){
-        Posts posts = postsRepository.findById(id).orElseThrow(()-> new IllegalArgumentException("해당 개시물이 없습니다 id=" + id));
-        postsRepository.delete(posts);
+        int deleted = postsRepository.deleteAllByIdIn(List.of(id));
+        if (deleted == 0) {
+            throw new IllegalArgumentException("해당 개시물이 없습니다 id=" + id);
+        }
+        postsCounter.deleted(deleted);
+        eventPublisher.publishEvent(new PostsChangedEvent(PostsChangedEvent.Type.DELETED, List.of(id)));
     }
 
+    /**
+     * 여러 게시글을 delete 한 문장으로 삭제하고 실제로 삭제된 건수를 반환한다.
+     * 하나도 삭제되지 않았으면 변경 이벤트를 발행하지 않는다(검색 색인, 실시간 피드가 없는 게시글을 처리하지 않는다).
+     * 일부만 삭제된 경우 어느 id 가 삭제됐는지는 조회하지 않으면 알수 없기 때문에 요청한 id 로 발행한다, 구독하는 쪽은 없는 id 의 삭제를 무시한다.
+     */
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.POSTS, allEntries = true)
+    public int deleteAll(List<Long> ids){
+        Set<Long> distinctIds = new LinkedHashSet<>(ids);
+        if (distinctIds.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("한번에 삭제할수 있는 게시글은 " + MAX_BATCH_SIZE + "개 까지 입니다. size=" + distinctIds.size());
+        }
+        if (distinctIds.isEmpty()) {
+            return 0;
+        }
 
+        int deleted = postsRepository.deleteAllByIdIn(distinctIds);
+        if (deleted == 0) {
+            return 0;
+        }
+        postsCounter.deleted(deleted);
+        eventPublisher.publishEvent(new PostsChangedEvent(PostsChangedEvent.Type.DELETED, List.copyOf(distinctIds)));
+        return deleted;
+    }
+
+    /**
+     * size + 1 건을 조회해서 다음 페이지가 있는지 판단한다, 다음 페이지가 있으면 마지막 게시글의 id 가 다음 커서가 된다.
+     */
+    private static PostsPageResponseDto toPage(List<PostsListResponseDto> posts, int pageSize){
+        boolean hasNext = posts.size() > pageSize;
+        List<PostsListResponseDto> page = hasNext ? posts.subList(0, pageSize) : posts;
+        Long nextCursor = hasNext ? page.get(page.size() - 1).getId() : null;
+        return new PostsPageResponseDto(page, nextCursor);
+    }
 }
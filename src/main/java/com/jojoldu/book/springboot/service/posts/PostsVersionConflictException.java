@@ -0,0 +1,25 @@
+package com.jojoldu.book.springboot.service.posts;
+
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.util.Collection;
+
+/**
+ * If-Match 로 보낸 버전이 현재 버전과 다르거나 게시글이 없을때 던진다, 클라이언트는 다시 조회해서 최신 버전을 받은 뒤 수정해야 한다.
+ * expectedVersions 가 비어 있으면 If-Match: * 이거나 이 게시글의 ETag 가 하나도 없던 경우이다.
+ */
+@Getter
+@ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+public class PostsVersionConflictException extends RuntimeException {
+
+    private final Long id;
+    private final Collection<Long> expectedVersions;
+
+    public PostsVersionConflictException(Long id, Collection<Long> expectedVersions) {
+        super("다른 사용자가 먼저 수정했거나 삭제된 게시글입니다. id=" + id + ", versions=" + expectedVersions);
+        this.id = id;
+        this.expectedVersions = expectedVersions;
+    }
+}
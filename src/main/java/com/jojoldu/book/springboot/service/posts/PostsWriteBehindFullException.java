@@ -0,0 +1,15 @@
+package com.jojoldu.book.springboot.service.posts;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * write-behind 큐가 가득 찼거나 종료 중일때 던진다, 클라이언트는 잠시 후 다시 요청해야 한다.
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class PostsWriteBehindFullException extends RuntimeException {
+
+    public PostsWriteBehindFullException(String message) {
+        super(message);
+    }
+}
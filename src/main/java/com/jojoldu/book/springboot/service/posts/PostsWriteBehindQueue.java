@@ -0,0 +1,234 @@
+package com.jojoldu.book.springboot.service.posts;
+
+import com.jojoldu.book.springboot.config.datasource.ReadYourWritesTracker;
+import com.jojoldu.book.springboot.web.dto.PostsSaveRequestDto;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 게시글 등록 요청을 큐에 모았다가 한 트랜잭션(PostsService.saveAll)으로 커밋하는 write-behind(group commit) 모드.
+ * posts.write-behind.enabled=true 일때만 빈으로 등록된다.
+ * 작성 스레드     큐에서 첫 요청을 꺼낸 뒤 flush-interval 동안 또는 max-batch 건이 모일때까지 더 모아서 커밋하고, 각 요청의 future 를 할당된 id 로 완료한다.
+ *                 한 트랜잭션이 실패하면 그 안의 요청들을 한건씩 다시 저장해서, 잘못된 요청 하나 때문에 나머지가 실패하지 않게 한다.
+ * 배압           큐가 가득 차면 enqueue-timeout 만큼 기다리고, 그래도 자리가 없으면 PostsWriteBehindFullException(503)을 던진다.
+ * 대기           save() 는 commit-timeout 까지만 커밋을 기다리고 503 으로 응답한다, 이미 큐에 들어간 요청은 취소되지 않아서 늦게 저장될수 있다.
+ * read-your-writes  커밋은 작성 스레드에서 하기 때문에 요청한 사용자를 PendingSave 에 담아두고, 커밋된 뒤 future 를 완료하기 전에 ReadYourWritesTracker 에 기록한다.
+ * 장애           작성 스레드에서 Error 가 나도 그 배치의 요청은 모두 실패로 완료하고, 스레드가 멈추면 큐에 남은 요청과 이후 요청을 바로 거절한다.
+ * 종료           SmartLifecycle 의 phase 가 웹 서버보다 낮아서 웹 서버가 요청을 다 처리하고 멈춘 뒤에 멈춘다, 멈출때는 새 요청을 거절하고 큐에 남은 요청을 모두 커밋한다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "posts.write-behind.enabled", havingValue = "true")
+public class PostsWriteBehindQueue implements SmartLifecycle {
+
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 30_000;
+
+    private final PostsService postsService;
+    private final ReadYourWritesTracker readYourWritesTracker;
+    private final BlockingQueue<PendingSave> queue;
+    private final int maxBatch;
+    private final long flushIntervalNanos;
+    private final long enqueueTimeoutNanos;
+    private final long commitTimeoutNanos;
+    private final DistributionSummary batchSize;
+
+    private volatile boolean running;
+    private volatile boolean writerDead;
+    private Thread writer;
+
+    public PostsWriteBehindQueue(PostsService postsService, ObjectProvider<ReadYourWritesTracker> readYourWritesTracker,
+                                 @Value("${posts.write-behind.capacity:10000}") int capacity,
+                                 @Value("${posts.write-behind.max-batch:200}") int maxBatch,
+                                 @Value("${posts.write-behind.flush-interval:10ms}") Duration flushInterval,
+                                 @Value("${posts.write-behind.enqueue-timeout:100ms}") Duration enqueueTimeout,
+                                 @Value("${posts.write-behind.commit-timeout:5s}") Duration commitTimeout,
+                                 MeterRegistry meterRegistry) {
+        this.postsService = postsService;
+        this.readYourWritesTracker = readYourWritesTracker.getIfAvailable();
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.maxBatch = Math.min(Math.max(maxBatch, 1), PostsService.MAX_BATCH_SIZE);
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.enqueueTimeoutNanos = enqueueTimeout.toNanos();
+        this.commitTimeoutNanos = commitTimeout.toNanos();
+        this.batchSize = DistributionSummary.builder("posts.write-behind.batch").register(meterRegistry);
+        meterRegistry.gauge("posts.write-behind.queue", queue, BlockingQueue::size);
+    }
+
+    /**
+     * 큐에 넣고 커밋될때까지 기다린다, 저장 중 난 예외는 그대로 던진다.
+     */
+    public Long save(PostsSaveRequestDto requestDto) {
+        try {
+            return submit(requestDto).get(commitTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new PostsWriteBehindFullException("게시글 저장이 지연되고 있습니다. 잠시 후 확인해주세요.");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("게시글을 저장하지 못했습니다.", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PostsWriteBehindFullException("게시글 저장을 기다리지 못했습니다.");
+        }
+    }
+
+    public CompletableFuture<Long> submit(PostsSaveRequestDto requestDto) {
+        if (!running || writerDead) {
+            throw new PostsWriteBehindFullException("게시글을 등록할수 없는 상태입니다. 잠시 후 다시 시도해주세요.");
+        }
+        PendingSave pending = new PendingSave(requestDto, ReadYourWritesTracker.currentUser(), new CompletableFuture<>());
+        try {
+            if (!queue.offer(pending, enqueueTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                throw new PostsWriteBehindFullException("등록 요청이 많아 잠시 후 다시 시도해주세요. queue=" + queue.size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PostsWriteBehindFullException("등록 요청을 큐에 넣지 못했습니다.");
+        }
+        // 넣는 사이에 작성 스레드가 멈췄다면 아무도 꺼내지 않는다
+        if (writerDead && queue.remove(pending)) {
+            throw new PostsWriteBehindFullException("게시글을 등록할수 없는 상태입니다. 잠시 후 다시 시도해주세요.");
+        }
+        return pending.future();
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        writer = new Thread(this::drainLoop, "posts-write-behind");
+        writer.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            writer.join(SHUTDOWN_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<PendingSave> left = new ArrayList<>();
+        queue.drainTo(left);
+        left.forEach(pending -> pending.future().completeExceptionally(new IllegalStateException("종료되어 저장하지 못했습니다.")));
+        if (!left.isEmpty()) {
+            log.warn("posts write-behind stopped with unsaved requests. count={}", left.size());
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private void drainLoop() {
+        try {
+            drainUntilStopped();
+        } catch (Throwable e) {
+            log.error("posts write-behind writer stopped unexpectedly.", e);
+            throw e;
+        } finally {
+            writerDead = true;
+            List<PendingSave> left = new ArrayList<>();
+            queue.drainTo(left);
+            left.forEach(pending -> pending.future().completeExceptionally(new PostsWriteBehindFullException("작성 스레드가 멈춰서 저장하지 못했습니다.")));
+        }
+    }
+
+    private void drainUntilStopped() {
+        List<PendingSave> batch = new ArrayList<>(maxBatch);
+        boolean interrupted = false;
+        while (!interrupted && (running || !queue.isEmpty())) {
+            try {
+                PendingSave first = queue.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                while (batch.size() < maxBatch) {
+                    if (queue.drainTo(batch, maxBatch - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    PendingSave next = (remaining > 0 && running) ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+            if (!batch.isEmpty()) {
+                commit(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void commit(List<PendingSave> batch) {
+        batchSize.record(batch.size());
+        List<PostsSaveRequestDto> requestDtos = new ArrayList<>(batch.size());
+        batch.forEach(pending -> requestDtos.add(pending.requestDto()));
+        try {
+            List<Long> ids = postsService.saveAll(requestDtos);
+            for (int i = 0; i < batch.size(); i++) {
+                committed(batch.get(i), ids.get(i));
+            }
+        } catch (RuntimeException e) {
+            log.warn("posts write-behind batch failed, retrying one by one. size={}", batch.size(), e);
+            for (PendingSave pending : batch) {
+                try {
+                    committed(pending, postsService.save(pending.requestDto()));
+                } catch (RuntimeException single) {
+                    pending.future().completeExceptionally(single);
+                } catch (Throwable fatal) {
+                    failAll(batch, fatal);
+                    throw fatal;
+                }
+            }
+        } catch (Throwable fatal) {
+            failAll(batch, fatal);
+            throw fatal;
+        }
+    }
+
+    private void committed(PendingSave pending, Long id) {
+        if (readYourWritesTracker != null) {
+            readYourWritesTracker.markWrite(pending.user());
+        }
+        pending.future().complete(id);
+    }
+
+    /**
+     * Error 는 다시 던져서 작성 스레드를 멈춘다, 그 전에 기다리는 요청이 영원히 막히지 않게 아직 완료되지 않은 요청을 모두 실패로 완료한다.
+     */
+    private static void failAll(List<PendingSave> batch, Throwable cause) {
+        batch.forEach(pending -> pending.future().completeExceptionally(cause));
+    }
+
+    private record PendingSave(PostsSaveRequestDto requestDto, String user, CompletableFuture<Long> future) {
+    }
+}
@@ -0,0 +1,27 @@
+package com.jojoldu.book.springboot.web;
+
+import com.samskivert.mustache.Mustache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.servlet.resource.ResourceUrlProvider;
+
+/**
+ * 모든 화면 모델에 asset 람다를 넣는다, {{#asset}}/js/app/index.js{{/asset}} 는 /js/app/index-<md5>.js 로 출력된다.
+ * 정적 파일이 아니거나 찾지 못하면 원래 주소를 그대로 출력한다.
+ */
+@ControllerAdvice
+@RequiredArgsConstructor
+public class AssetUrlAdvice {
+
+    private final ResourceUrlProvider resourceUrlProvider;
+
+    @ModelAttribute("asset")
+    public Mustache.Lambda asset() {
+        return (fragment, out) -> {
+            String path = fragment.execute().trim();
+            String versioned = resourceUrlProvider.getForLookupPath(path);
+            out.write(versioned == null ? path : versioned);
+        };
+    }
+}
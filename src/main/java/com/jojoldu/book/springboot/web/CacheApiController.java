@@ -0,0 +1,30 @@
+package com.jojoldu.book.springboot.web;
+
+import com.jojoldu.book.springboot.web.dto.CacheStatsResponseDto;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * 캐시 크기를 정하기 위한 적중/미스/축출 카운터를 조회한다.
+ */
+@RestController
+@RequiredArgsConstructor
+public class CacheApiController {
+
+    private final CacheManager cacheManager;
+
+    @GetMapping("/api/v1/caches/{name}/stats")
+    public CacheStatsResponseDto stats(@PathVariable("name") String name){
+        Cache cache = cacheManager.getCache(name);
+        if(!(cache instanceof CaffeineCache caffeineCache)){
+            throw new IllegalArgumentException("해당 캐시가 없습니다. name=" + name);
+        }
+        com.github.benmanes.caffeine.cache.Cache<Object, Object> nativeCache = caffeineCache.getNativeCache();
+        return new CacheStatsResponseDto(name, nativeCache.estimatedSize(), nativeCache.stats());
+    }
+}
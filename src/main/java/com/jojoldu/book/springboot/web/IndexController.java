@@ -2,33 +2,98 @@ package com.jojoldu.book.springboot.web;
 
 import com.jojoldu.book.springboot.config.auth.LoginUser;
 import com.jojoldu.book.springboot.config.auth.SessionUser;
+import com.jojoldu.book.springboot.service.posts.PostsCounter;
 import com.jojoldu.book.springboot.service.posts.PostsService;
+import com.jojoldu.book.springboot.web.dto.PostsListResponseDto;
+import com.jojoldu.book.springboot.web.dto.PostsPageResponseDto;
 import com.jojoldu.book.springboot.web.dto.PostsResponseDto;
+import com.jojoldu.book.springboot.web.view.StreamingRows;
+import com.samskivert.mustache.Mustache;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.WebRequest;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 
 /**
  * '@LoginUser' 을 사용하면 어느 컨트롤러에서도 세션 정보를 가져올수 있다.
+ * index    조회한 페이지의 내용(id, 제목, 수정일) + 다음 커서 + 전체 수 + 로그인 사용자로 ETag 를 만들고, 일치하면 템플릿 렌더링 없이 304 를 응답한다.
+ *          DB 에 있는 값으로 만들기 때문에 서버가 여러대여도 다른 서버에서 바뀐 목록을 304 로 응답하지 않는다. (페이지 조회는 PK 인덱스로 size 건만 읽는다)
+ *          화면에 로그인 사용자 이름이 들어가기 때문에 Cache-Control 은 private 으로 둔다.
+ *          게시글 목록은 StreamingRows 로 넘겨서 행을 나눠서 flush 한다.
+ * postsByAuthor    작성자별 목록(프로필) 화면, 작성자 이름에 공백이나 & 가 있을수 있어서 경로 대신 쿼리 파라미터로 받는다.
+ * 조회      두 화면 모두 렌더링 전에 조회를 끝낸다, 조회가 실패하면 응답이 커밋되기 전이라 오류 화면(5xx)으로 응답한다.
+ * '@Timed'  컨트롤러(조회)까지만 기록한다, 렌더링 시간은 CachingMustacheView 의 posts.view.render 타이머에 있다.
  */
+@Timed("posts.index")
 @Controller
 @RequiredArgsConstructor
 public class IndexController {
 
+    /**
+     * 작성자 이름을 쿼리 파라미터로 넣을때 사용한다, {{#urlEncode}}{{{author}}}{{/urlEncode}}
+     * 인코딩된 문자열에는 HTML 특수문자가 남지 않기 때문에 이스케이프 없이 그대로 쓴다.
+     */
+    private static final Mustache.Lambda URL_ENCODE = (fragment, out) -> out.write(URLEncoder.encode(fragment.execute(), StandardCharsets.UTF_8));
+
     private final PostsService postsService;
+    private final PostsCounter postsCounter;
 
     @GetMapping("/")
-    public String index(Model model, @LoginUser SessionUser user){
-        model.addAttribute("posts", postsService.findAllDesc());
+    public String index(Model model, @LoginUser SessionUser user, @RequestParam(value = "cursor", required = false) Long cursor,
+                        WebRequest webRequest, HttpServletResponse response){
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().cachePrivate().getHeaderValue());
+        PostsPageResponseDto page = postsService.findPageDesc(cursor, PostsService.DEFAULT_PAGE_SIZE);
+        long totalCount = postsCounter.total();
+        if(webRequest.checkNotModified(etag(page, totalCount, user))){
+            return null;
+        }
+
+        model.addAttribute("posts", new StreamingRows<>(page.getPosts()));
+        model.addAttribute("nextCursor", page.getNextCursor());
+        model.addAttribute("totalCount", totalCount);
+        model.addAttribute("urlEncode", URL_ENCODE);
         if(user != null){
             model.addAttribute("userName",user.getName());
         }
         return "index";
     }
 
+    @GetMapping("/posts/author")
+    public String postsByAuthor(@RequestParam("author") String author, @RequestParam(value = "cursor", required = false) Long cursor,
+                                Model model){
+        PostsPageResponseDto page = postsService.findPageByAuthorDesc(author, cursor, PostsService.DEFAULT_PAGE_SIZE);
+        model.addAttribute("author", author);
+        model.addAttribute("authorCount", postsCounter.countByAuthor(author));
+        model.addAttribute("posts", new StreamingRows<>(page.getPosts()));
+        model.addAttribute("nextCursor", page.getNextCursor());
+        model.addAttribute("urlEncode", URL_ENCODE);
+        return "posts-author";
+    }
+
+    private static String etag(PostsPageResponseDto page, long totalCount, SessionUser user) {
+        StringBuilder content = new StringBuilder();
+        for (PostsListResponseDto posts : page.getPosts()) {
+            content.append(posts.getId()).append('\u0000').append(posts.getTitle()).append('\u0000').append(posts.getModifiedDate()).append('\n');
+        }
+        content.append(page.getNextCursor()).append('\n').append(totalCount).append('\n');
+        if (user != null) {
+            content.append(user.getName()).append('\u0000').append(user.getEmail());
+        }
+        return "\"posts-" + DigestUtils.md5DigestAsHex(content.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
     @GetMapping("/posts/save")
     public String postsSave(){
         return "posts-save";
@@ -1,32 +1,203 @@
 package com.jojoldu.book.springboot.web;
 
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.jojoldu.book.springboot.config.JacksonConfig;
+import com.jojoldu.book.springboot.domain.posts.PostsRepository;
+import com.jojoldu.book.springboot.service.posts.PostsCounter;
+import com.jojoldu.book.springboot.service.posts.PostsImportService;
+import com.jojoldu.book.springboot.service.posts.PostsSearchIndex;
 import com.jojoldu.book.springboot.service.posts.PostsService;
+import com.jojoldu.book.springboot.service.posts.PostsVersionConflictException;
+import com.jojoldu.book.springboot.service.posts.PostsWriteBehindQueue;
+import com.jojoldu.book.springboot.web.dto.PostsCountResponseDto;
+import com.jojoldu.book.springboot.web.dto.PostsExportDto;
+import com.jojoldu.book.springboot.web.dto.PostsImportResponseDto;
+import com.jojoldu.book.springboot.web.dto.PostsPageResponseDto;
 import com.jojoldu.book.springboot.web.dto.PostsResponseDto;
 import com.jojoldu.book.springboot.web.dto.PostsSaveRequestDto;
 import com.jojoldu.book.springboot.web.dto.PostsUpdateRequestDto;
+import io.micrometer.core.annotation.Timed;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * save        write-behind 모드이면 큐에 넣고 커밋될때까지(commit-timeout) 기다린다, 트랜잭션 밖에서 기다리기 때문에 기다리는 동안 DB 커넥션을 잡고 있지 않는다.
+ * findById    WebRequest.checkNotModified() 가 true 이면 If-None-Match / If-Modified-Since 가 일치한 것이다.
+ *             이때 null 을 반환하면 스프링이 본문 직렬화 없이 304 를 응답한다. ETag 는 "id-version" 이다.
+ * update      If-Match 로 ETag 를 보내면 그 버전일때만 수정하고, 그 사이 다른 요청이 수정했거나 게시글이 없으면 412 로 응답한다.
+ *             ETag 목록("1-2", "1-3")이면 그 중 하나일때 수정하고, * 이면 게시글이 있을때만 수정한다.
+ * fields      findById, findPage, search 에 fields=id,title 처럼 넘기면 게시글 DTO 의 그 필드만 직렬화한다. (없는 필드명은 무시한다)
+ *             Map 으로 옮겨 담지 않고 Jackson 필터(MappingJacksonValue)로 직렬화할때 나머지 필드를 건너뛴다.
+ *             요청/응답 본문은 JSON 외에 CBOR, Smile 도 Content-Type / Accept 로 고를수 있다. (JacksonConfig)
+ * search      cursor 는 이전 응답의 nextCursor 를 그대로 넘긴다. (점수와 id 로 만든 문자열)
+ * export      StreamingResponseBody 는 요청 스레드를 반납하고 MVC 비동기 스레드에서 응답에 바로 쓴다.
+ *             게시글 수와 관계없이 한 행씩 쓰고 버리기 때문에 메모리 사용량이 일정하다, id 오름차순이라 afterId 로 이어받을수 있다.
+ * importPosts 요청 본문(NDJSON)을 multipart 로 받지 않고 그대로 읽는다, multipart 는 파일을 디스크에 먼저 다 받은 뒤에 처리하기 때문이다.
+ *             청크가 커밋될때마다 진행 상황을 한줄씩 flush 하고, 마지막 줄이 최종 결과이다.
+ */
+@Timed("posts.api")
 @RestController
 @RequiredArgsConstructor
 public class PostsApiController {
 
+    private static final int EXPORT_BUFFER_SIZE = 64 * 1024;
+    private static final String CSV_HEADER = "id,title,content,author,createDate,modifiedDate\r\n";
+
     private final PostsService postsService;
+    private final PostsSearchIndex postsSearchIndex;
+    private final PostsImportService postsImportService;
+    private final PostsCounter postsCounter;
+    private final ObjectProvider<PostsWriteBehindQueue> writeBehindQueue;
+    private final ObjectMapper objectMapper;
 
     @PostMapping("/api/v1/posts")
     public Long save(@RequestBody PostsSaveRequestDto requestDto){
-        return postsService.save(requestDto);
+        PostsWriteBehindQueue queue = writeBehindQueue.getIfAvailable();
+        if (queue == null) {
+            return postsService.save(requestDto);
+        }
+        return queue.save(requestDto);
+    }
+
+    @PostMapping("/api/v1/posts/batch")
+    public List<Long> saveAll(@RequestBody List<PostsSaveRequestDto> requestDtos){
+        return postsService.saveAll(requestDtos);
+    }
+
+    @PostMapping("/api/v1/posts/import")
+    public void importPosts(@RequestParam(value = "chunkSize", defaultValue = "" + PostsImportService.DEFAULT_CHUNK_SIZE) int chunkSize,
+                            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        Writer out = response.getWriter();
+        ObjectWriter writer = objectMapper.writerFor(PostsImportResponseDto.class);
+
+        PostsImportResponseDto result = postsImportService.importNdjson(request.getInputStream(), chunkSize, progress -> {
+            try {
+                out.write(writer.writeValueAsString(progress) + "\n");
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        out.write(writer.writeValueAsString(result) + "\n");
+        out.flush();
+    }
+
+    @GetMapping("/api/v1/posts/counts")
+    public PostsCountResponseDto counts(@RequestParam(value = "author", required = false) String author){
+        Long authorCount = (author == null) ? null : postsCounter.countByAuthor(author);
+        return new PostsCountResponseDto(postsCounter.total(), author, authorCount);
+    }
+
+    @GetMapping("/api/v1/posts/search")
+    public MappingJacksonValue search(@RequestParam("q") String query,
+                                      @RequestParam(value = "cursor", required = false) String cursor,
+                                      @RequestParam(value = "size", defaultValue = "" + PostsService.DEFAULT_PAGE_SIZE) int size,
+                                      @RequestParam(value = "fields", required = false) String fields){
+        return withFields(postsService.search(query, cursor, size), fields);
+    }
+
+    @GetMapping("/api/v1/posts/search/stats")
+    public PostsSearchIndex.Stats searchStats(){
+        return postsSearchIndex.stats();
+    }
+
+    @GetMapping("/api/v1/posts/export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(value = "format", defaultValue = "ndjson") String format,
+                                                        @RequestParam(value = "afterId", required = false) Long afterId){
+        boolean csv = "csv".equalsIgnoreCase(format);
+        if (!csv && !"ndjson".equalsIgnoreCase(format)) {
+            throw new IllegalArgumentException("지원하지 않는 형식입니다. format=" + format);
+        }
+        ObjectWriter writer = objectMapper.writerFor(PostsExportDto.class);
+
+        StreamingResponseBody body = outputStream -> {
+            Writer out = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), EXPORT_BUFFER_SIZE);
+            if (csv) {
+                out.write(CSV_HEADER);
+            }
+            long[] written = {0};
+            postsService.export(afterId, dto -> {
+                try {
+                    out.write(csv ? toCsvLine(dto) : writer.writeValueAsString(dto) + "\n");
+                    if (++written[0] % PostsRepository.EXPORT_FETCH_SIZE == 0) {
+                        out.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            out.flush();
+        };
+
+        return ResponseEntity.ok()
+                .contentType(csv ? new MediaType("text", "csv", StandardCharsets.UTF_8) : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=posts." + (csv ? "csv" : "ndjson"))
+                .body(body);
     }
 
     @GetMapping("/api/v1/posts/{id}")
-    public PostsResponseDto findById(@PathVariable("id") Long id){
-        return postsService.findById(id);
+    public MappingJacksonValue findById(@PathVariable("id") Long id, @RequestParam(value = "fields", required = false) String fields,
+                                        WebRequest webRequest){
+        PostsResponseDto dto = postsService.findById(id);
+        String etag = etag(dto.getId(), dto.getVersion());
+        boolean notModified = (dto.getModifiedDate() == null)
+                ? webRequest.checkNotModified(etag)
+                : webRequest.checkNotModified(etag, dto.getModifiedDate().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        if(notModified){
+            return null;
+        }
+        return withFields(dto, fields);
+    }
+
+    @GetMapping("/api/v1/posts")
+    public MappingJacksonValue findPage(@RequestParam(value = "author", required = false) String author,
+                                        @RequestParam(value = "cursor", required = false) Long cursor,
+                                        @RequestParam(value = "size", defaultValue = "" + PostsService.DEFAULT_PAGE_SIZE) int size,
+                                        @RequestParam(value = "fields", required = false) String fields){
+        PostsPageResponseDto page = (author != null)
+                ? postsService.findPageByAuthorDesc(author, cursor, size)
+                : postsService.findPageDesc(cursor, size);
+        return withFields(page, fields);
     }
 
     @PutMapping("/api/v1/posts/{id}")
-    public Long update(@PathVariable("id") Long id, @RequestBody PostsUpdateRequestDto requestDto){
-        return postsService.update(id,requestDto);
+    public ResponseEntity<Long> update(@PathVariable("id") Long id,
+                                       @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                       @RequestBody PostsUpdateRequestDto requestDto){
+        List<Long> expectedVersions = parseIfMatch(id, ifMatch);
+        postsService.updateIfMatch(id, expectedVersions, requestDto);
+
+        // 버전을 하나만 보낸 경우에만 수정 후 버전을 조회 없이 알수 있다
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (expectedVersions != null && expectedVersions.size() == 1) {
+            response.eTag(etag(id, expectedVersions.get(0) + 1));
+        }
+        return response.body(id);
     }
 
     @DeleteMapping("/api/v1/posts/{id}")
@@ -35,4 +206,77 @@ public class PostsApiController {
         return id;
     }
 
+    @DeleteMapping("/api/v1/posts")
+    public int deleteAll(@RequestParam("ids") List<Long> ids){
+        return postsService.deleteAll(ids);
+    }
+
+    private static MappingJacksonValue withFields(Object body, String fields){
+        MappingJacksonValue value = new MappingJacksonValue(body);
+        if (fields != null && !fields.isBlank()) {
+            Set<String> names = new HashSet<>();
+            for (String name : fields.split(",")) {
+                if (!name.isBlank()) {
+                    names.add(name.trim());
+                }
+            }
+            value.setFilters(JacksonConfig.fieldsFilter(names));
+        }
+        return value;
+    }
+
+    private static String etag(Long id, Long version){
+        return "\"" + id + "-" + version + "\"";
+    }
+
+    /**
+     * If-Match 가 없으면 null(조건 없이 수정), * 이면 빈 목록(게시글이 있을때만 수정), 아니면 이 게시글 ETag 들의 버전 목록.
+     * 이 게시글의 ETag 가 하나도 없으면(다른 게시글의 ETag 이거나 형식이 잘못되었다면) 412 로 응답한다.
+     */
+    private static List<Long> parseIfMatch(Long id, String ifMatch){
+        if (ifMatch == null || ifMatch.isBlank()) {
+            return null;
+        }
+        if (ifMatch.trim().equals("*")) {
+            return List.of();
+        }
+        String prefix = id + "-";
+        List<Long> versions = new ArrayList<>();
+        for (String value : ifMatch.split(",")) {
+            String tag = value.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            tag = tag.replace("\"", "");
+            if (!tag.startsWith(prefix)) {
+                continue;
+            }
+            try {
+                versions.add(Long.parseLong(tag.substring(prefix.length())));
+            } catch (NumberFormatException ignored) {
+                // 형식이 잘못된 ETag 는 어떤 버전과도 일치하지 않는다
+            }
+        }
+        if (versions.isEmpty()) {
+            throw new PostsVersionConflictException(id, versions);
+        }
+        return versions;
+    }
+
+    private static String toCsvLine(PostsExportDto dto){
+        return dto.getId() + "," + csvField(dto.getTitle()) + "," + csvField(dto.getContent()) + "," + csvField(dto.getAuthor())
+                + "," + csvField(dto.getCreateDate()) + "," + csvField(dto.getModifiedDate()) + "\r\n";
+    }
+
+    private static String csvField(Object value){
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return "\"" + text.replace("\"", "\"\"") + "\"";
+    }
+
 }
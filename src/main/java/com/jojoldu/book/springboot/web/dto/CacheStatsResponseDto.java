@@ -0,0 +1,24 @@
+package com.jojoldu.book.springboot.web.dto;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.Getter;
+
+@Getter
+public class CacheStatsResponseDto {
+
+    private String name;
+    private long size;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+    private double hitRate;
+
+    public CacheStatsResponseDto(String name, long size, CacheStats stats) {
+        this.name = name;
+        this.size = size;
+        this.hitCount = stats.hitCount();
+        this.missCount = stats.missCount();
+        this.evictionCount = stats.evictionCount();
+        this.hitRate = stats.hitRate();
+    }
+}
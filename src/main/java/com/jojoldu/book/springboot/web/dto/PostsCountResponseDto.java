@@ -0,0 +1,17 @@
+package com.jojoldu.book.springboot.web.dto;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * author 를 넘기지 않으면 author, authorCount 는 null 이다.
+ * 요약 테이블 기준이라 최대 posts.counter.flush-interval + max-staleness 만큼 늦게 반영될수 있다.
+ */
+@Getter
+@RequiredArgsConstructor
+public class PostsCountResponseDto {
+
+    private final long total;
+    private final String author;
+    private final Long authorCount;
+}
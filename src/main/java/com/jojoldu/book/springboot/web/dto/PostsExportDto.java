@@ -0,0 +1,26 @@
+package com.jojoldu.book.springboot.web.dto;
+
+import com.jojoldu.book.springboot.domain.posts.Posts;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+@Getter
+public class PostsExportDto {
+
+    private Long id;
+    private String title;
+    private String content;
+    private String author;
+    private LocalDateTime createDate;
+    private LocalDateTime modifiedDate;
+
+    public PostsExportDto(Posts posts) {
+        this.id = posts.getId();
+        this.title = posts.getTitle();
+        this.content = posts.getContent();
+        this.author = posts.getAuthor();
+        this.createDate = posts.getCreateDate();
+        this.modifiedDate = posts.getModifiedDate();
+    }
+}
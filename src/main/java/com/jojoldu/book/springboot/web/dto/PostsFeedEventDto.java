@@ -0,0 +1,19 @@
+package com.jojoldu.book.springboot.web.dto;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+/**
+ * /posts/events 로 보내는 게시글 변경 이벤트.
+ * posts    created, updated 일때 목록 한 행에 필요한 값, deleted 이면 빈 목록이고 ids 만 채운다.
+ */
+@Getter
+@RequiredArgsConstructor
+public class PostsFeedEventDto {
+
+    private final String type;
+    private final List<Long> ids;
+    private final List<PostsListResponseDto> posts;
+}
@@ -0,0 +1,29 @@
+package com.jojoldu.book.springboot.web.dto;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 가져오기 진행 상황, 청크가 커밋될때마다 한줄씩 응답하고 마지막 줄은 done 이 true 이다.
+ * errors 는 최대 100건까지만 담고, 전체 실패 건수는 failed 로 확인한다.
+ */
+@Getter
+@RequiredArgsConstructor
+public class PostsImportResponseDto {
+
+    private final long lines;
+    private final long imported;
+    private final long failed;
+    private final boolean done;
+    private final List<LineError> errors;
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class LineError {
+
+        private final long line;
+        private final String message;
+    }
+}
@@ -1,10 +1,13 @@
 package com.jojoldu.book.springboot.web.dto;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.jojoldu.book.springboot.config.JacksonConfig;
 import com.jojoldu.book.springboot.domain.posts.Posts;
 import lombok.Getter;
 
 import java.time.LocalDateTime;
 
+@JsonFilter(JacksonConfig.FIELDS_FILTER)
 @Getter
 public class PostsListResponseDto {
 
@@ -19,4 +22,11 @@ public class PostsListResponseDto {
         this.author = posts.getAuthor();
         this.modifiedDate = posts.getModifiedDate();
     }
+
+    public PostsListResponseDto(Long id, String title, String author, LocalDateTime modifiedDate) {
+        this.id = id;
+        this.title = title;
+        this.author = author;
+        this.modifiedDate = modifiedDate;
+    }
 }
@@ -0,0 +1,17 @@
+package com.jojoldu.book.springboot.web.dto;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+/**
+ * nextCursor 다음 페이지를 요청할때 cursor 파라미터로 넘겨줄 값, 마지막 페이지라면 null 이다.
+ */
+@Getter
+@RequiredArgsConstructor
+public class PostsPageResponseDto {
+
+    private final List<PostsListResponseDto> posts;
+    private final Long nextCursor;
+}
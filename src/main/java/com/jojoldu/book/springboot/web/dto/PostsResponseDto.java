@@ -1,8 +1,13 @@
 package com.jojoldu.book.springboot.web.dto;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.jojoldu.book.springboot.config.JacksonConfig;
 import com.jojoldu.book.springboot.domain.posts.Posts;
 import lombok.Getter;
 
+import java.time.LocalDateTime;
+
+@JsonFilter(JacksonConfig.FIELDS_FILTER)
 @Getter
 public class PostsResponseDto {
 
@@ -10,11 +15,15 @@ public class PostsResponseDto {
     private String title;
     private String content;
     private String author;
+    private LocalDateTime modifiedDate;
+    private Long version;
 
     public PostsResponseDto(Posts posts) {
         this.id = posts.getId();
         this.title = posts.getTitle();
         this.content = posts.getContent();
         this.author = posts.getAuthor();
+        this.modifiedDate = posts.getModifiedDate();
+        this.version = posts.getVersion();
     }
 }
@@ -0,0 +1,24 @@
+package com.jojoldu.book.springboot.web.feed;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * 메인 화면이 EventSource 로 접속해서 게시글 등록/수정/삭제를 받는다. (index.js)
+ * 연결 하나가 요청 스레드를 잡고 있지 않기 때문에(서블릿 비동기) 대기 중인 연결은 소켓과 버퍼 메모리만 쓴다.
+ * 오래 열려있는 요청이라 '@Timed' 를 붙이지 않는다.
+ */
+@RestController
+@RequiredArgsConstructor
+public class PostsFeedController {
+
+    private final PostsFeedDispatcher postsFeedDispatcher;
+
+    @GetMapping(value = "/posts/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter events() {
+        return postsFeedDispatcher.connect();
+    }
+}
@@ -0,0 +1,238 @@
+package com.jojoldu.book.springboot.web.feed;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jojoldu.book.springboot.domain.posts.PostsRepository;
+import com.jojoldu.book.springboot.service.posts.PostsChangedEvent;
+import com.jojoldu.book.springboot.web.dto.PostsFeedEventDto;
+import com.jojoldu.book.springboot.web.dto.PostsListResponseDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 게시글 변경(PostsChangedEvent, 커밋 이후)을 /posts/events 에 접속한 모든 브라우저에 보낸다.
+ * 이벤트      변경마다 한번만 조회하고 SSE 프레임으로 만든 뒤, 같은 프레임을 모든 접속의 버퍼에 넣는다.
+ * 버퍼       접속마다 buffer-size 개까지만 쌓는다, 가득 차면(느린 클라이언트) 연결을 끊는다. 브라우저는 다시 접속하면서 화면을 새로 받는다.
+ * 전송       sender-threads 개의 스레드가 버퍼를 비운다, 한 접속은 한 스레드만 비우기 때문에 순서가 유지되고
+ *            이벤트를 발행한 요청 스레드는 소켓 쓰기를 기다리지 않는다.
+ * heartbeat  주기적으로 주석(:ping)을 보내서 프록시의 유휴 타임아웃을 막고, 끊어진 연결은 쓰기 실패로 정리한다.
+ * 종료       웹 서버의 graceful shutdown 보다 먼저 멈춰서(phase) 열려있는 연결을 모두 닫는다, 그렇지 않으면 종료가 timeout 까지 기다린다.
+ */
+@Slf4j
+@Component
+public class PostsFeedDispatcher implements SmartLifecycle {
+
+    private static final long RECONNECT_MILLIS = 3_000;
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 5_000;
+
+    private final PostsRepository postsRepository;
+    private final ObjectMapper objectMapper;
+    private final long timeoutMillis;
+    private final int bufferSize;
+    private final int maxClients;
+    private final int senderThreads;
+    private final Set<Client> clients = ConcurrentHashMap.newKeySet();
+    private final AtomicLong sequence = new AtomicLong();
+    private final Counter evicted;
+    private final Set<ResponseBodyEmitter.DataWithMediaType> heartbeat = SseEmitter.event().comment("ping").build();
+    private final Set<ResponseBodyEmitter.DataWithMediaType> connected = SseEmitter.event().reconnectTime(RECONNECT_MILLIS).comment("connected").build();
+
+    private volatile boolean running;
+    private ExecutorService senders;
+
+    public PostsFeedDispatcher(PostsRepository postsRepository, ObjectMapper objectMapper,
+                               @Value("${posts.feed.timeout:30m}") Duration timeout,
+                               @Value("${posts.feed.buffer-size:32}") int bufferSize,
+                               @Value("${posts.feed.max-clients:20000}") int maxClients,
+                               @Value("${posts.feed.sender-threads:4}") int senderThreads,
+                               MeterRegistry meterRegistry) {
+        this.postsRepository = postsRepository;
+        this.objectMapper = objectMapper;
+        this.timeoutMillis = timeout.toMillis();
+        this.bufferSize = Math.max(bufferSize, 1);
+        this.maxClients = maxClients;
+        this.senderThreads = Math.max(senderThreads, 1);
+        this.evicted = Counter.builder("posts.feed.evicted").register(meterRegistry);
+        meterRegistry.gauge("posts.feed.clients", clients, Set::size);
+    }
+
+    public SseEmitter connect() {
+        if (!running) {
+            throw new PostsFeedFullException("종료 중이라 접속할수 없습니다.");
+        }
+        if (clients.size() >= maxClients) {
+            throw new PostsFeedFullException("접속자가 많아 잠시 후 다시 접속합니다. clients=" + clients.size());
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Client client = new Client(emitter, bufferSize);
+        emitter.onCompletion(() -> clients.remove(client));
+        emitter.onError(e -> clients.remove(client));
+        clients.add(client);
+        offer(client, connected);
+        return emitter;
+    }
+
+    public int clientCount() {
+        return clients.size();
+    }
+
+    @TransactionalEventListener
+    public void onPostsChanged(PostsChangedEvent event) {
+        if (clients.isEmpty()) {
+            return;
+        }
+        List<PostsListResponseDto> posts = Collections.emptyList();
+        if (event.getType() != PostsChangedEvent.Type.DELETED) {
+            posts = postsRepository.findListByIdIn(event.getIds()).stream()
+                    .sorted(Comparator.comparing(PostsListResponseDto::getId))
+                    .toList();
+        }
+        String type = event.getType().name().toLowerCase(Locale.ROOT);
+        String data;
+        try {
+            data = objectMapper.writeValueAsString(new PostsFeedEventDto(type, event.getIds(), posts));
+        } catch (JsonProcessingException e) {
+            log.warn("posts feed event serialization failed. type={}, ids={}", type, event.getIds(), e);
+            return;
+        }
+        broadcast(SseEmitter.event()
+                .id(String.valueOf(sequence.incrementAndGet()))
+                .name(type)
+                .data(data, MediaType.APPLICATION_JSON)
+                .build());
+    }
+
+    @Scheduled(fixedDelayString = "${posts.feed.heartbeat:15s}")
+    public void heartbeat() {
+        broadcast(heartbeat);
+    }
+
+    @Override
+    public void start() {
+        senders = Executors.newFixedThreadPool(senderThreads, new CustomizableThreadFactory("posts-feed-"));
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        for (Client client : clients) {
+            close(client);
+        }
+        senders.shutdown();
+        try {
+            senders.awaitTermination(SHUTDOWN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void broadcast(Set<ResponseBodyEmitter.DataWithMediaType> frame) {
+        for (Client client : clients) {
+            if (!offer(client, frame)) {
+                evicted.increment();
+                log.debug("posts feed client evicted, buffer full. buffer={}", bufferSize);
+            }
+        }
+    }
+
+    private boolean offer(Client client, Set<ResponseBodyEmitter.DataWithMediaType> frame) {
+        if (!client.frames.offer(frame)) {
+            close(client);
+            return false;
+        }
+        schedule(client);
+        return true;
+    }
+
+    /**
+     * 연결을 닫는 것도 보내는 스레드에서 한다, 느린 클라이언트에 쓰는 중이라면 complete() 가 쓰기가 끝날때까지 막히기 때문이다.
+     */
+    private void close(Client client) {
+        clients.remove(client);
+        client.closed.set(true);
+        client.frames.clear();
+        schedule(client);
+    }
+
+    private void schedule(Client client) {
+        if (running && client.scheduled.compareAndSet(false, true)) {
+            senders.execute(() -> drain(client));
+        } else if (!running && client.closed.get()) {
+            client.emitter.complete();
+        }
+    }
+
+    private void drain(Client client) {
+        while (true) {
+            if (client.closed.get()) {
+                client.emitter.complete();
+                return;
+            }
+            Set<ResponseBodyEmitter.DataWithMediaType> frame = client.frames.poll();
+            if (frame == null) {
+                client.scheduled.set(false);
+                // 내려놓는 사이에 들어온 프레임이 있으면 다시 맡는다
+                if ((client.frames.isEmpty() && !client.closed.get()) || !client.scheduled.compareAndSet(false, true)) {
+                    return;
+                }
+                continue;
+            }
+            try {
+                client.emitter.send(frame);
+            } catch (IOException | IllegalStateException e) {
+                // 브라우저가 연결을 끊었다, 컨테이너가 emitter 를 정리한다
+                clients.remove(client);
+                client.frames.clear();
+                return;
+            }
+        }
+    }
+
+    /**
+     * 접속 하나, 버퍼와 두 플래그 외에는 상태가 없어서 대기 중인 연결 하나에 드는 메모리가 작다.
+     */
+    private static final class Client {
+
+        private final SseEmitter emitter;
+        private final BlockingQueue<Set<ResponseBodyEmitter.DataWithMediaType>> frames;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Client(SseEmitter emitter, int bufferSize) {
+            this.emitter = emitter;
+            this.frames = new ArrayBlockingQueue<>(bufferSize);
+        }
+    }
+}
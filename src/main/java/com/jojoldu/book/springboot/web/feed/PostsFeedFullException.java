@@ -0,0 +1,15 @@
+package com.jojoldu.book.springboot.web.feed;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * 접속 수가 max-clients 에 도달했거나 종료 중일때 던진다, 브라우저(EventSource)는 retry 간격 뒤에 다시 접속한다.
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class PostsFeedFullException extends RuntimeException {
+
+    public PostsFeedFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,54 @@
+package com.jojoldu.book.springboot.web.view;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.web.servlet.view.MustacheView;
+
+import java.io.Writer;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 부트의 MustacheView 는 요청마다 템플릿 파일을 읽어서 다시 컴파일한다, 이 View 는 MustacheTemplateCache 에서 컴파일된 템플릿을 가져온다.
+ * 모델에 StreamingRows 가 있으면 응답 Writer 를 연결해서 목록을 순회하면서 나눠서 flush 하게 한다.
+ * 렌더링 시간은 컨트롤러의 '@Timed' 에 들어가지 않기 때문에(View 는 컨트롤러가 반환한 뒤에 렌더링한다) posts.view.render 타이머에 template 태그로 따로 기록한다.
+ * flush 하는 화면은 브라우저에 보내는 시간까지 포함된다.
+ */
+public class CachingMustacheView extends MustacheView {
+
+    private static final String RENDER_TIMER = "posts.view.render";
+
+    private MustacheTemplateCache templateCache;
+    private Timer renderTimer;
+
+    @Override
+    protected void initApplicationContext() {
+        super.initApplicationContext();
+        this.templateCache = obtainApplicationContext().getBean(MustacheTemplateCache.class);
+        MeterRegistry meterRegistry = obtainApplicationContext().getBeanProvider(MeterRegistry.class).getIfAvailable();
+        if (meterRegistry != null) {
+            this.renderTimer = Timer.builder(RENDER_TIMER).tag("template", String.valueOf(getBeanName())).register(meterRegistry);
+        }
+    }
+
+    @Override
+    protected void renderMergedTemplateModel(Map<String, Object> model, HttpServletRequest request,
+                                             HttpServletResponse response) throws Exception {
+        long startedAt = System.nanoTime();
+        try {
+            Writer writer = response.getWriter();
+            for (Object value : model.values()) {
+                if (value instanceof StreamingRows<?> rows) {
+                    rows.bind(writer);
+                }
+            }
+            templateCache.get(getUrl()).execute(model, writer);
+        } finally {
+            if (renderTimer != null) {
+                renderTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+}
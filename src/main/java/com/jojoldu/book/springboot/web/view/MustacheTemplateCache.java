@@ -0,0 +1,82 @@
+package com.jojoldu.book.springboot.web.view;
+
+import com.samskivert.mustache.Mustache;
+import com.samskivert.mustache.Template;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 컴파일한 Mustache 템플릿을 템플릿 주소(classpath:/templates/index.mustache)별로 보관한다.
+ * 시작할때 templates 바로 아래의 화면 템플릿을 모두 컴파일해서, 첫 요청이 컴파일을 기다리지 않게 한다.
+ * 포함하는 템플릿({{>layout/header}})은 JMustache 가 처음 렌더링할때 컴파일해서 상위 템플릿 안에 보관한다.
+ * spring.mustache.servlet.cache=false 이면 매번 다시 컴파일해서 개발중 수정한 템플릿이 바로 반영된다.
+ */
+@Slf4j
+@Component
+public class MustacheTemplateCache {
+
+    private final Mustache.Compiler compiler;
+    private final ResourcePatternResolver resourceResolver;
+    private final String prefix;
+    private final String suffix;
+    private final Charset charset;
+    private final boolean enabled;
+    private final Map<String, Template> templates = new ConcurrentHashMap<>();
+
+    public MustacheTemplateCache(Mustache.Compiler compiler, ResourcePatternResolver resourceResolver,
+                                 @Value("${spring.mustache.prefix:classpath:/templates/}") String prefix,
+                                 @Value("${spring.mustache.suffix:.mustache}") String suffix,
+                                 @Value("${spring.mustache.charset:UTF-8}") Charset charset,
+                                 @Value("${spring.mustache.servlet.cache:true}") boolean enabled) {
+        this.compiler = compiler;
+        this.resourceResolver = resourceResolver;
+        this.prefix = prefix;
+        this.suffix = suffix;
+        this.charset = charset;
+        this.enabled = enabled;
+    }
+
+    public Template get(String url) {
+        if (!enabled) {
+            return compile(url);
+        }
+        return templates.computeIfAbsent(url, this::compile);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warm() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        for (Resource resource : resourceResolver.getResources(prefix + "*" + suffix)) {
+            String url = prefix + resource.getFilename();
+            try {
+                get(url);
+            } catch (RuntimeException e) {
+                log.warn("mustache template warm-up failed. template={}", url, e);
+            }
+        }
+        log.info("mustache templates compiled. count={}", templates.size());
+    }
+
+    private Template compile(String url) {
+        try (Reader reader = new InputStreamReader(resourceResolver.getResource(url).getInputStream(), charset)) {
+            return compiler.compile(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException("템플릿을 읽을수 없습니다. template=" + url, e);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.jojoldu.book.springboot.web.view;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Iterator;
+
+/**
+ * 컨트롤러가 이미 조회한 목록을 감싸서, 템플릿이 {{#posts}} 를 순회하는 동안 나눠서 flush 하는 Iterable.
+ * CachingMustacheView 가 응답 Writer 를 연결해두면, 순회를 시작할때 지금까지 렌더링한 부분(헤더)을 먼저 flush 하고
+ * 이후 flushEvery 행마다 flush 해서 브라우저가 목록을 다 받기 전부터 화면을 그릴수 있게 한다.
+ * 조회는 컨트롤러에서 끝내고 넘겨야 한다, 첫 flush 로 응답이 커밋된 뒤에 조회가 실패하면 상태 코드를 바꿀수 없어서 잘린 200 이 나가기 때문이다.
+ */
+public class StreamingRows<T> implements Iterable<T> {
+
+    private static final int DEFAULT_FLUSH_EVERY = 10;
+
+    private final Iterable<T> rows;
+    private final int flushEvery;
+    private Writer writer;
+    private boolean flushed;
+
+    public StreamingRows(Iterable<T> rows) {
+        this(rows, DEFAULT_FLUSH_EVERY);
+    }
+
+    public StreamingRows(Iterable<T> rows, int flushEvery) {
+        this.rows = rows;
+        this.flushEvery = flushEvery;
+    }
+
+    void bind(Writer writer) {
+        this.writer = writer;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        if (flushed) {
+            // 다시 순회할때는({{^posts}} 등) 나눠서 flush 하지 않는다
+            return rows.iterator();
+        }
+        flushed = true;
+        flush();
+        Iterator<T> iterator = rows.iterator();
+        return new Iterator<>() {
+            private int count;
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public T next() {
+                if (count > 0 && count % flushEvery == 0) {
+                    flush();
+                }
+                count++;
+                return iterator.next();
+            }
+        };
+    }
+
+    private void flush() {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+-- Posts 의 id 를 만드는 posts_seq 테이블. MySQL 은 시퀀스가 없어서 하이버네이트가 한 행짜리 테이블(next_val)로 시퀀스를 대신한다.
+-- real 프로파일은 ddl-auto 를 사용하지 않기 때문에 배포 전에 직접 실행한다. (애플리케이션이 자동으로 실행하지 않는다)
+-- 테이블이 없으면 게시글 등록이 모두 실패한다.
+-- pooled 할당은 읽은 next_val 을 allocationSize(50)개 블록의 끝으로 사용하기 때문에, 기존 id 와 겹치지 않게 max(id) 보다 allocationSize 이상 크게 시작한다.
+-- 다른 서버가 등록 중이면 그 사이에 늘어난 id 와 겹칠수 있으니 등록을 멈추고 실행한다.
+CREATE TABLE posts_seq (
+    next_val BIGINT
+) ENGINE=InnoDB;
+
+INSERT INTO posts_seq (next_val)
+SELECT COALESCE(MAX(id), 0) + 51 FROM posts;
@@ -0,0 +1,15 @@
+-- 로그인할때 email 로 조회하는 member 의 unique 인덱스(User 의 ux_member_email).
+-- real 프로파일은 ddl-auto 를 사용하지 않기 때문에 배포 전에 직접 실행한다. (애플리케이션이 자동으로 실행하지 않는다)
+-- 인덱스가 없으면 동시에 처음 로그인한 요청이 같은 email 로 두 행을 만들고, 이후 findByEmail 이 두 건을 찾아서 로그인이 실패한다.
+-- (CustomOAuth2UserService 는 이 인덱스의 중복 오류를 받아서 먼저 만들어진 행을 다시 조회한다)
+
+-- 1. 이미 중복된 email 은 가장 먼저 만들어진 행(id 가 가장 작은 행)만 남긴다.
+--    이름, 사진은 다음 로그인때 OAuth 정보로 다시 갱신되고, 게시글은 member id 가 아닌 작성자 문자열로 저장하기 때문에 지워도 남는 참조가 없다.
+--    비교는 컬럼의 collation 을 따르기 때문에 unique 인덱스가 중복으로 보는 값(대소문자만 다른 email 등)과 같은 기준으로 지운다.
+DELETE duplicate
+FROM member duplicate
+JOIN member kept ON kept.email = duplicate.email AND kept.id < duplicate.id;
+
+-- 2. 온라인으로 만들기 때문에 만드는 동안에도 읽기/쓰기가 막히지 않는다.
+--    1 과 2 사이에 중복이 다시 생기면 Duplicate entry 로 실패한다, 그때는 1 부터 다시 실행한다.
+CREATE UNIQUE INDEX ux_member_email ON member (email) ALGORITHM=INPLACE LOCK=NONE;
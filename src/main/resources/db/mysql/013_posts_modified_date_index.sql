@@ -0,0 +1,5 @@
+-- 검색 색인 동기화(PostsSearchIndex.syncModified → findModifiedAfter)가 사용하는 (modified_date, id) 인덱스.
+-- real 프로파일은 ddl-auto 를 사용하지 않기 때문에 배포 전에 직접 실행한다. (애플리케이션이 자동으로 실행하지 않는다)
+-- 인덱스가 없으면 sync-interval 마다 전체 테이블을 읽고 정렬한다.
+-- InnoDB 는 온라인으로 만들기 때문에 만드는 동안에도 읽기/쓰기가 막히지 않는다.
+CREATE INDEX ix_posts_modified_date ON posts (modified_date, id) ALGORITHM=INPLACE LOCK=NONE;
@@ -0,0 +1,4 @@
+-- Posts.version (낙관적 락, If-Match) 컬럼 추가.
+-- real 프로파일은 ddl-auto 를 사용하지 않기 때문에 배포 전에 직접 실행한다. (애플리케이션이 자동으로 실행하지 않는다)
+-- DEFAULT 0 으로 기존 게시글도 0 으로 채운다, NULL 이면 벌크 update 의 version + 1 이 계속 NULL 로 남아서 If-Match 가 항상 412 가 된다.
+ALTER TABLE posts ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
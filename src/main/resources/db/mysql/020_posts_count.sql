@@ -0,0 +1,14 @@
+-- 게시글 수 요약 테이블(PostsCount), PostsCounter 가 증감분을 더하고 재계산한다.
+-- real 프로파일은 ddl-auto 를 사용하지 않기 때문에 배포 전에 직접 실행한다. (애플리케이션이 자동으로 실행하지 않는다)
+-- 테이블이 없으면 시작할때 재계산과 flush 가 실패한다.
+-- 현재 게시글 수로 한번에 채워두기 때문에 서버들이 시작하면서 각자 재계산하지 않는다. (total 행이 있으면 재계산을 건너뛴다)
+CREATE TABLE posts_count (
+    counter_key VARCHAR(300) NOT NULL,
+    post_count  BIGINT       NOT NULL,
+    PRIMARY KEY (counter_key)
+);
+
+INSERT INTO posts_count (counter_key, post_count)
+SELECT 'total', COUNT(*) FROM posts
+UNION ALL
+SELECT CONCAT('author:', author), COUNT(*) FROM posts WHERE author IS NOT NULL GROUP BY author;
@@ -12,6 +12,54 @@ var main = {
         $('#btn-delete').on('click', function () {
             _this.delete();
         });
+
+        if ($('#total-count').length && window.EventSource) {
+            _this.listen();
+        }
+    },
+    // 메인 화면을 새로고침하지 않고 다른 사용자의 등록/수정/삭제를 목록에 바로 반영한다.
+    // 연결이 끊기면 EventSource 가 서버가 보낸 retry 간격 뒤에 다시 접속한다.
+    listen : function () {
+        var _this = this;
+        var firstPage = window.location.search.indexOf('cursor=') < 0;
+        var source = new EventSource('/posts/events');
+
+        source.addEventListener('created', function (event) {
+            var data = JSON.parse(event.data);
+            if (firstPage) {
+                // 응답은 id 오름차순이라 하나씩 맨 위에 넣으면 최신 글이 가장 위에 온다
+                $.each(data.posts, function (i, post) {
+                    $('#tbody tr[data-id="' + post.id + '"]').remove();
+                    $('#tbody').prepend(_this.row(post));
+                });
+            }
+            _this.addTotal(data.ids.length);
+        });
+        source.addEventListener('updated', function (event) {
+            $.each(JSON.parse(event.data).posts, function (i, post) {
+                $('#tbody tr[data-id="' + post.id + '"]').replaceWith(_this.row(post));
+            });
+        });
+        source.addEventListener('deleted', function (event) {
+            var data = JSON.parse(event.data);
+            $.each(data.ids, function (i, id) {
+                $('#tbody tr[data-id="' + id + '"]').remove();
+            });
+            _this.addTotal(-data.ids.length);
+        });
+    },
+    row : function (post) {
+        // 제목, 작성자는 사용자가 입력한 값이라 html 이 아닌 text 로 넣는다
+        return $('<tr>').attr('data-id', post.id).append(
+            $('<td>').text(post.id),
+            $('<td>').append($('<a>').attr('href', '/posts/update/' + post.id).text(post.title)),
+            $('<td>').append($('<a>').attr('href', '/posts/author?author=' + encodeURIComponent(post.author)).text(post.author)),
+            $('<td>').text(post.modifiedDate)
+        );
+    },
+    addTotal : function (delta) {
+        var total = $('#total-count');
+        total.text(Math.max(0, parseInt(total.text(), 10) + delta));
     },
     save : function () {
         var data = {
@@ -40,10 +88,12 @@ var main = {
         };
 
         var id = $('#id').val();
+        var version = $('#version').val();
 
         $.ajax({
             type: 'PUT',
             url: '/api/v1/posts/'+id,
+            headers: {'If-Match': '"' + id + '-' + version + '"'},
             dataType: 'json',
             contentType:'application/json; charset=utf-8',
             data: JSON.stringify(data)
@@ -51,6 +101,10 @@ var main = {
             alert('글이 수정되었습니다.');
             window.location.href = '/';
         }).fail(function (error) {
+            if (error.status === 412) {
+                alert('다른 사용자가 먼저 수정한 글입니다. 새로고침 후 다시 수정해주세요.');
+                return;
+            }
             alert(JSON.stringify(error));
         });
     },
@@ -0,0 +1,26 @@
+package com.jojoldu.book.springboot.config;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SampledStatementInspectorTest {
+
+    @Test
+    void SQL_은_표본_비율과_관계없이_그대로_반환한다() {
+        // given
+        String sql = "select p1_0.id from posts p1_0 where p1_0.id=?";
+
+        // when then
+        assertThat(new SampledStatementInspector(0).inspect(sql)).isEqualTo(sql);
+        assertThat(new SampledStatementInspector(1).inspect(sql)).isEqualTo(sql);
+    }
+
+    @Test
+    void 표본_비율이_0_과_1_사이가_아니면_시작하지_않는다() {
+        // when then
+        assertThatThrownBy(() -> new SampledStatementInspector(1.5))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
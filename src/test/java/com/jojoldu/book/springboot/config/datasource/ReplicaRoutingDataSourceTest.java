@@ -0,0 +1,96 @@
+package com.jojoldu.book.springboot.config.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 서로 다른 H2 메모리 DB 3개를 primary, replica 로 사용하고 커넥션의 url 로 어느 DB 로 갔는지 확인한다.
+ */
+class ReplicaRoutingDataSourceTest {
+
+    private HikariDataSource primary;
+    private HikariDataSource replica0;
+    private HikariDataSource replica1;
+    private ReadYourWritesTracker tracker;
+
+    @BeforeEach
+    void setup() {
+        primary = h2("primary");
+        replica0 = h2("replica0");
+        replica1 = h2("replica1");
+        tracker = new ReadYourWritesTracker(Duration.ofSeconds(5));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        primary.close();
+        replica0.close();
+        replica1.close();
+    }
+
+    @Test
+    void 읽기_전용_커넥션은_replica_로_나머지는_primary_로_간다() throws SQLException {
+        LazyConnectionDataSourceProxy dataSource = routing(ReplicaRoutingDataSource.Selection.ROUND_ROBIN);
+
+        assertThat(url(dataSource, true)).contains("replica0");
+        assertThat(url(dataSource, true)).contains("replica1");
+        assertThat(url(dataSource, true)).contains("replica0");
+        assertThat(url(dataSource, false)).contains("primary");
+    }
+
+    @Test
+    void least_busy_는_사용중인_커넥션이_적은_replica_를_고른다() throws SQLException {
+        LazyConnectionDataSourceProxy dataSource = routing(ReplicaRoutingDataSource.Selection.LEAST_BUSY);
+
+        try (Connection busy = replica0.getConnection()) {
+            assertThat(url(dataSource, true)).contains("replica1");
+        }
+        assertThat(url(dataSource, true)).contains("replica0");
+    }
+
+    @Test
+    void 쓰기를_한_사용자는_window_동안_primary_에서_읽는다() throws SQLException {
+        LazyConnectionDataSourceProxy dataSource = routing(ReplicaRoutingDataSource.Selection.ROUND_ROBIN);
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("writer", null, "ROLE_USER"));
+
+        tracker.markWrite();
+        assertThat(url(dataSource, true)).contains("primary");
+
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("reader", null, "ROLE_USER"));
+        assertThat(url(dataSource, true)).contains("replica");
+    }
+
+    private LazyConnectionDataSourceProxy routing(ReplicaRoutingDataSource.Selection selection) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primary);
+        dataSource.setReadOnlyDataSource(new ReplicaRoutingDataSource(primary, List.of(replica0, replica1), selection, tracker));
+        return dataSource;
+    }
+
+    private static String url(LazyConnectionDataSourceProxy dataSource, boolean readOnly) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setReadOnly(readOnly);
+            return ((ConnectionProxy) connection).getTargetConnection().getMetaData().getURL();
+        }
+    }
+
+    private static HikariDataSource h2(String name) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        dataSource.setPoolName(name);
+        return dataSource;
+    }
+}
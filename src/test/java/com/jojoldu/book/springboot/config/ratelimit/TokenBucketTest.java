@@ -0,0 +1,96 @@
+package com.jojoldu.book.springboot.config.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void burst_만큼_허용하고_넘치면_기다릴_시간을_반환한다() {
+        // given
+        TokenBucket bucket = new TokenBucket(10, 3);
+        long now = 1_000 * SECOND;
+
+        // when
+        long first = bucket.tryAcquire("user", now);
+        long second = bucket.tryAcquire("user", now);
+        long third = bucket.tryAcquire("user", now);
+        long rejected = bucket.tryAcquire("user", now);
+
+        // then
+        assertThat(first).isZero();
+        assertThat(second).isZero();
+        assertThat(third).isZero();
+        assertThat(rejected).isEqualTo(SECOND / 10);
+        assertThat(bucket.tryAcquire("other", now)).isZero();
+    }
+
+    @Test
+    void 시간이_지나면_초당_개수만큼_다시_채워진다() {
+        // given
+        TokenBucket bucket = new TokenBucket(10, 1);
+        long now = 1_000 * SECOND;
+        bucket.tryAcquire("user", now);
+
+        // when then
+        assertThat(bucket.tryAcquire("user", now + SECOND / 20)).isPositive();
+        assertThat(bucket.tryAcquire("user", now + SECOND / 10)).isZero();
+    }
+
+    @Test
+    void 가득_찬_버킷만_정리된다() {
+        // given
+        TokenBucket bucket = new TokenBucket(1, 1);
+        long now = 1_000 * SECOND;
+        bucket.tryAcquire("idle", now - 10 * SECOND);
+        bucket.tryAcquire("active", now);
+
+        // when
+        int evicted = bucket.evictIdle(now);
+
+        // then
+        assertThat(evicted).isEqualTo(1);
+        assertThat(bucket.size()).isEqualTo(1);
+        assertThat(bucket.tryAcquire("active", now)).isPositive();
+    }
+
+    @Test
+    void 동시에_요청해도_burst_보다_많이_허용하지_않는다() throws Exception {
+        // given
+        TokenBucket bucket = new TokenBucket(1, 100);
+        long now = 1_000 * SECOND;
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // when
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            futures.add(executor.submit(() -> {
+                int allowed = 0;
+                for (int i = 0; i < 1_000; i++) {
+                    if (bucket.tryAcquire("user", now) == 0) {
+                        allowed++;
+                    }
+                }
+                return allowed;
+            }));
+        }
+        int allowed = 0;
+        for (Future<Integer> future : futures) {
+            allowed += future.get();
+        }
+        executor.shutdown();
+
+        // then
+        assertThat(allowed).isEqualTo(100);
+    }
+}
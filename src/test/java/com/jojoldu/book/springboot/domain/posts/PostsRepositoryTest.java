@@ -1,10 +1,12 @@
 package com.jojoldu.book.springboot.domain.posts;
 
+import com.jojoldu.book.springboot.web.dto.PostsListResponseDto;
 import org.aspectj.lang.annotation.After;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.TestPropertySource;
 
 import java.time.LocalDateTime;
@@ -63,4 +65,21 @@ class PostsRepositoryTest {
         assertThat(posts.getCreateDate()).isAfter(now);
         assertThat(posts.getModifiedDate()).isAfter(now);
     }
+
+    @Test
+    void 목록_DTO_프로젝션_조회(){
+        // given
+        postsRepository.save(Posts.builder().title("title1").content("content1").author("author1").build());
+        postsRepository.save(Posts.builder().title("title2").content("content2").author("author2").build());
+
+        // when
+        List<PostsListResponseDto> list = postsRepository.findFirstPageDesc(PageRequest.of(0, 10));
+
+        // then
+        assertThat(list).hasSize(2);
+        assertThat(list.get(0).getTitle()).isEqualTo("title2");
+        assertThat(list.get(0).getAuthor()).isEqualTo("author2");
+        assertThat(list.get(0).getModifiedDate()).isNotNull();
+        assertThat(list.get(1).getTitle()).isEqualTo("title1");
+    }
 }
\ No newline at end of file
@@ -0,0 +1,65 @@
+package com.jojoldu.book.springboot.service.posts;
+
+import com.jojoldu.book.springboot.domain.posts.Posts;
+import com.jojoldu.book.springboot.domain.posts.PostsRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 다른 서버의 변경    PostsService 를 거치지 않고 PostsRepository 로 직접 저장/삭제해서 이 서버에 이벤트가 오지 않는 경우를 만든다.
+ */
+@SpringBootTest
+class PostsSearchIndexTest {
+
+    @Autowired
+    private PostsSearchIndex postsSearchIndex;
+
+    @Autowired
+    private PostsRepository postsRepository;
+
+    @BeforeEach
+    public void awaitReady() throws InterruptedException {
+        for (int i = 0; i < 100 && !postsSearchIndex.isReady(); i++) {
+            Thread.sleep(50);
+        }
+        assertThat(postsSearchIndex.isReady()).isTrue();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        postsRepository.deleteAll();
+        postsSearchIndex.removeDeleted();
+    }
+
+    @Test
+    void 다른_서버에서_등록된_게시글을_동기화로_색인한다() {
+        // given
+        Long id = postsRepository.save(Posts.builder().title("동기화 제목").content("content").author("author").build()).getId();
+
+        // when
+        postsSearchIndex.syncModified();
+
+        // then
+        assertThat(postsSearchIndex.search("동기화", null, 10).getIds()).contains(id);
+    }
+
+    @Test
+    void 다른_서버에서_삭제된_게시글을_색인에서_지운다() {
+        // given
+        Posts posts = postsRepository.save(Posts.builder().title("삭제될 제목").content("content").author("author").build());
+        postsSearchIndex.syncModified();
+        assertThat(postsSearchIndex.search("삭제될", null, 10).getIds()).contains(posts.getId());
+
+        // when
+        postsRepository.delete(posts);
+        postsSearchIndex.removeDeleted();
+
+        // then
+        assertThat(postsSearchIndex.search("삭제될", null, 10).getIds()).doesNotContain(posts.getId());
+    }
+}
@@ -0,0 +1,228 @@
+package com.jojoldu.book.springboot.service.posts;
+
+import com.jojoldu.book.springboot.domain.posts.Posts;
+import com.jojoldu.book.springboot.domain.posts.PostsRepository;
+import com.jojoldu.book.springboot.web.dto.PostsSaveRequestDto;
+import com.jojoldu.book.springboot.web.dto.PostsUpdateRequestDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 동시 수정    여러 스레드가 하나의 게시글을 동시에 수정한다, 버전은 캐시를 거치지 않도록 PostsRepository 로 직접 읽는다.
+ * 게시글 수    다른 테스트의 데이터가 남아 있을수 있어서 실행 전 값과의 차이로 확인한다.
+ */
+@SpringBootTest
+@RecordApplicationEvents
+class PostsServiceTest {
+
+    private static final int THREADS = 16;
+
+    @Autowired
+    private PostsService postsService;
+
+    @Autowired
+    private PostsRepository postsRepository;
+
+    @Autowired
+    private PostsCounter postsCounter;
+
+    @Autowired
+    private ApplicationEvents applicationEvents;
+
+    @AfterEach
+    public void tearDown() {
+        postsRepository.deleteAll();
+    }
+
+    @Test
+    void 같은_버전으로_동시에_수정하면_하나만_성공한다() throws Exception {
+        // given
+        Long id = postsRepository.save(Posts.builder().title("title").content("content").author("author").build()).getId();
+        Long version = postsRepository.findById(id).orElseThrow().getVersion();
+        AtomicInteger success = new AtomicInteger();
+        AtomicInteger conflict = new AtomicInteger();
+
+        // when
+        runConcurrently(thread -> {
+            try {
+                postsService.update(id, version, request("title" + thread));
+                success.incrementAndGet();
+            } catch (PostsVersionConflictException e) {
+                conflict.incrementAndGet();
+            }
+        });
+
+        // then
+        assertThat(success.get()).isEqualTo(1);
+        assertThat(conflict.get()).isEqualTo(THREADS - 1);
+        assertThat(postsRepository.findById(id).orElseThrow().getVersion()).isEqualTo(version + 1);
+    }
+
+    @Test
+    void 충돌하면_다시_읽고_재시도해서_수정이_유실되지_않는다() throws Exception {
+        // given
+        Long id = postsRepository.save(Posts.builder().title("title").content("content").author("author").build()).getId();
+        Long version = postsRepository.findById(id).orElseThrow().getVersion();
+
+        // when
+        runConcurrently(thread -> {
+            while (true) {
+                Long current = postsRepository.findById(id).orElseThrow().getVersion();
+                try {
+                    postsService.update(id, current, request("title" + thread));
+                    return;
+                } catch (PostsVersionConflictException e) {
+                    // 다른 스레드가 먼저 수정했다, 최신 버전을 다시 읽는다
+                }
+            }
+        });
+
+        // then
+        assertThat(postsRepository.findById(id).orElseThrow().getVersion()).isEqualTo(version + THREADS); // 모든 스레드의 수정이 한번씩 반영됐다
+    }
+
+    @Test
+    void 등록_삭제가_커밋되면_게시글_수에_반영된다() {
+        // given
+        long total = postsCounter.total();
+        long author1 = postsCounter.countByAuthor("author1");
+        long author2 = postsCounter.countByAuthor("author2");
+
+        // when
+        List<Long> ids = postsService.saveAll(List.of(
+                PostsSaveRequestDto.builder().title("title").content("content").author("author1").build(),
+                PostsSaveRequestDto.builder().title("title").content("content").author("author1").build(),
+                PostsSaveRequestDto.builder().title("title").content("content").author("author2").build()));
+        postsService.delete(ids.get(0));
+
+        // then 삭제는 전체 수에만 바로 반영되고, 작성자별 수는 재계산으로 맞춘다
+        assertThat(postsCounter.total()).isEqualTo(total + 2);
+        assertThat(postsCounter.countByAuthor("author1")).isEqualTo(author1 + 2);
+        assertThat(postsCounter.countByAuthor("author2")).isEqualTo(author2 + 1);
+
+        postsCounter.flush(); // 요약 테이블로 옮겨도 같은 값이다
+        assertThat(postsCounter.total()).isEqualTo(total + 2);
+        assertThat(postsCounter.countByAuthor("author1")).isEqualTo(author1 + 2);
+
+        postsCounter.recount();
+        assertThat(postsCounter.countByAuthor("author1"))
+                .isEqualTo(postsRepository.findAll().stream().filter(posts -> "author1".equals(posts.getAuthor())).count());
+    }
+
+    @Test
+    void 없는_게시글만_삭제하면_변경_이벤트를_발행하지_않는다() {
+        // given
+        Long id = postsRepository.save(Posts.builder().title("title").content("content").author("author").build()).getId();
+        postsRepository.deleteById(id);
+
+        // when
+        int deleted = postsService.deleteAll(List.of(id, id + 1));
+
+        // then
+        assertThat(deleted).isZero();
+        assertThat(applicationEvents.stream(PostsChangedEvent.class)).isEmpty();
+    }
+
+    @Test
+    void 동시에_flush_해도_증감분을_한번만_반영한다() throws Exception {
+        // given
+        long total = postsCounter.total();
+        postsService.saveAll(List.of(PostsSaveRequestDto.builder().title("title").content("content").author("author5").build()));
+
+        // when
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                postsCounter.flush();
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // then
+        assertThat(postsCounter.total()).isEqualTo(total + 1);
+        assertThat(postsCounter.countByAuthor("author5")).isEqualTo(1);
+    }
+
+    @Test
+    void 재계산하면_실제_게시글_수와_같아진다() {
+        // given
+        postsRepository.save(Posts.builder().title("title").content("content").author("author3").build()); // 카운터를 거치지 않고 저장
+
+        // when
+        postsCounter.recount();
+
+        // then
+        assertThat(postsCounter.total()).isEqualTo(postsRepository.count());
+        assertThat(postsCounter.countByAuthor("author3")).isEqualTo(1);
+    }
+
+    @Test
+    void 재계산을_여러번_해도_같은_값이고_글이_없는_작성자는_0_이다() {
+        // given
+        Posts posts = postsRepository.save(Posts.builder().title("title").content("content").author("author4").build());
+        postsCounter.recount();
+        postsRepository.delete(posts);
+
+        // when
+        postsCounter.recount();
+        postsCounter.recount();
+
+        // then
+        assertThat(postsCounter.total()).isEqualTo(postsRepository.count());
+        assertThat(postsCounter.countByAuthor("author4")).isZero();
+    }
+
+    private static PostsUpdateRequestDto request(String title) {
+        return PostsUpdateRequestDto.builder().title(title).content("content").build();
+    }
+
+    private static void runConcurrently(ThreadTask task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < THREADS; i++) {
+                int thread = i;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    task.run(thread);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @FunctionalInterface
+    private interface ThreadTask {
+        void run(int thread);
+    }
+}
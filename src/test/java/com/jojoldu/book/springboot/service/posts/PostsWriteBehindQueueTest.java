@@ -0,0 +1,97 @@
+package com.jojoldu.book.springboot.service.posts;
+
+import com.jojoldu.book.springboot.config.datasource.ReadYourWritesTracker;
+import com.jojoldu.book.springboot.web.dto.PostsSaveRequestDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PostsWriteBehindQueueTest {
+
+    private final PostsService postsService = mock(PostsService.class);
+    private final PostsSaveRequestDto requestDto = PostsSaveRequestDto.builder()
+            .title("title")
+            .content("content")
+            .author("author")
+            .build();
+    private final ReadYourWritesTracker readYourWritesTracker = new ReadYourWritesTracker(Duration.ofSeconds(5));
+    private PostsWriteBehindQueue queue;
+
+    @AfterEach
+    public void tearDown() {
+        queue.stop();
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void 작성_스레드에서_Error_가_나면_기다리던_요청이_실패하고_이후_요청은_거절된다() {
+        // given
+        when(postsService.saveAll(anyList())).thenThrow(new StackOverflowError());
+        queue = start(Duration.ofSeconds(5));
+
+        // when then
+        assertThatThrownBy(() -> queue.save(requestDto))
+                .isInstanceOf(IllegalStateException.class)
+                .hasCauseInstanceOf(StackOverflowError.class);
+        assertThatThrownBy(() -> queue.save(requestDto))
+                .isInstanceOf(PostsWriteBehindFullException.class);
+    }
+
+    @Test
+    void 커밋이_commit_timeout_보다_늦으면_503_으로_응답한다() {
+        // given
+        CountDownLatch release = new CountDownLatch(1);
+        when(postsService.saveAll(anyList())).thenAnswer(invocation -> {
+            release.await();
+            return List.of(1L);
+        });
+        queue = start(Duration.ofMillis(100));
+
+        // when then
+        try {
+            assertThatThrownBy(() -> queue.save(requestDto))
+                    .isInstanceOf(PostsWriteBehindFullException.class);
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void 작성_스레드에서_커밋해도_요청한_사용자의_쓰기로_기록된다() {
+        // given
+        when(postsService.saveAll(anyList())).thenReturn(List.of(1L));
+        SecurityContextHolder.getContext().setAuthentication(
+                UsernamePasswordAuthenticationToken.authenticated("writer", null, AuthorityUtils.createAuthorityList("ROLE_USER")));
+        queue = start(Duration.ofSeconds(5));
+
+        // when
+        queue.save(requestDto);
+
+        // then
+        assertThat(readYourWritesTracker.isWithinWindow()).isTrue();
+    }
+
+    private PostsWriteBehindQueue start(Duration commitTimeout) {
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("readYourWritesTracker", readYourWritesTracker);
+        PostsWriteBehindQueue queue = new PostsWriteBehindQueue(postsService, beanFactory.getBeanProvider(ReadYourWritesTracker.class),
+                100, 10, Duration.ofMillis(1),
+                Duration.ofMillis(100), commitTimeout, new SimpleMeterRegistry());
+        queue.start();
+        return queue;
+    }
+}
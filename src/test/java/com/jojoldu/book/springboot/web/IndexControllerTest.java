@@ -1,5 +1,11 @@
 package com.jojoldu.book.springboot.web;
 
+import com.jojoldu.book.springboot.domain.posts.Posts;
+import com.jojoldu.book.springboot.domain.posts.PostsRepository;
+import com.jojoldu.book.springboot.service.posts.PostsService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
@@ -8,10 +14,19 @@ import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 @AutoConfigureMockMvc
@@ -20,6 +35,17 @@ class IndexControllerTest {
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private PostsRepository postsRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @AfterEach
+    public void tearDown() {
+        postsRepository.deleteAll();
+    }
+
     @Test
     @WithMockUser(roles = "USER")
     void 메인_페이지_로딩() throws Exception {
@@ -27,4 +53,87 @@ class IndexControllerTest {
         mockMvc.perform(get("/"))
                 .andExpect(content().string(containsString("스프링부트로 시작하는 웹 서비스 Ver.2")));
     }
-}
\ No newline at end of file
+
+    @Test
+    void 정적_파일은_md5_가_붙은_주소와_immutable_캐시로_응답한다() throws Exception {
+        // given
+        String html = mockMvc.perform(get("/"))
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+        Matcher matcher = Pattern.compile("/js/app/index-[0-9a-f]{32}\\.js").matcher(html);
+        assertTrue(matcher.find());
+
+        // when then
+        mockMvc.perform(get(matcher.group()))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", containsString("immutable")));
+    }
+
+    @Test
+    void md5_가_없는_정적_파일_주소는_매번_재검증한다() throws Exception {
+        // when then
+        mockMvc.perform(get("/js/app/index.js"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", containsString("no-cache")))
+                .andExpect(header().string("Cache-Control", not(containsString("immutable"))));
+    }
+
+    @Test
+    void 게시글_목록과_다음_페이지_링크가_렌더링된다() throws Exception {
+        // given
+        List<Posts> posts = new ArrayList<>();
+        for (int i = 0; i <= PostsService.DEFAULT_PAGE_SIZE; i++) {
+            posts.add(Posts.builder().title("title" + i).content("content").author("author").build());
+        }
+        postsRepository.saveAll(posts);
+
+        // when
+        String html = mockMvc.perform(get("/"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+        // then
+        assertTrue(html.contains(">title" + PostsService.DEFAULT_PAGE_SIZE + "</a>"));
+        assertFalse(html.contains(">title0</a>"));
+        assertTrue(html.indexOf("</tbody>") < html.indexOf("id=\"btn-next\""));
+        assertTrue(html.contains("/?cursor="));
+    }
+
+    @Test
+    void 다른_서버에서_목록이_바뀌어도_304_로_응답하지_않는다() throws Exception {
+        // given
+        postsRepository.save(Posts.builder().title("title1").content("content").author("author").build());
+        String etag = mockMvc.perform(get("/"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        mockMvc.perform(get("/").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        // when 이벤트 없이 DB 에만 반영된 쓰기 (다른 서버가 저장한 경우)
+        postsRepository.save(Posts.builder().title("title2").content("content").author("author").build());
+
+        // then
+        mockMvc.perform(get("/").header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("title2")));
+    }
+
+    @Test
+    void 렌더링_시간을_템플릿별_타이머로_기록한다() throws Exception {
+        // given
+        postsRepository.save(Posts.builder().title("title1").content("content").author("author").build());
+        long before = renderCount("posts-author");
+
+        // when
+        mockMvc.perform(get("/posts/author").param("author", "author"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("title1")));
+
+        // then
+        assertEquals(before + 1, renderCount("posts-author"));
+    }
+
+    private long renderCount(String template) {
+        Timer timer = meterRegistry.find("posts.view.render").tag("template", template).timer();
+        return timer == null ? 0 : timer.count();
+    }
+}
@@ -1,8 +1,11 @@
 package com.jojoldu.book.springboot.web;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
 import com.jojoldu.book.springboot.domain.posts.Posts;
 import com.jojoldu.book.springboot.domain.posts.PostsRepository;
+import com.jojoldu.book.springboot.service.posts.PostsSearchIndex;
 import com.jojoldu.book.springboot.web.dto.PostsSaveRequestDto;
 import com.jojoldu.book.springboot.web.dto.PostsUpdateRequestDto;
 import org.junit.jupiter.api.AfterEach;
@@ -16,17 +19,25 @@ import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 /**
@@ -43,6 +54,8 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @AutoConfigureMockMvc
 class PostsApiControllerTest {
 
+    private static final MediaType CBOR = MediaType.APPLICATION_CBOR;
+
     @LocalServerPort
     int port;
 
@@ -96,6 +109,30 @@ class PostsApiControllerTest {
         assertThat(all.get(0).getContent()).isEqualTo(content);
     }
 
+    @Test
+    @WithMockUser(roles = "USER")
+    void post_여러건이_한번에_등록된다() throws Exception{
+        // given
+        List<PostsSaveRequestDto> requestDtos = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            requestDtos.add(PostsSaveRequestDto.builder()
+                    .title("title" + i)
+                    .content("content" + i)
+                    .author("author")
+                    .build());
+        }
+
+        // when
+        mockMvc.perform(post("/api/v1/posts/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(requestDtos)))
+                // then
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(120));
+
+        assertThat(postsRepository.count()).isEqualTo(120);
+    }
+
     @Test
     @WithMockUser(roles = "USER")
     void post_수정된다() throws Exception{
@@ -131,21 +168,366 @@ class PostsApiControllerTest {
         assertThat(all.get(0).getContent()).isEqualTo(expectedContent);
 
     }
-}
 
+    @Test
+    @WithMockUser(roles = "USER")
+    void post_If_Match_가_이전_버전이면_412를_응답한다() throws Exception{
+        // given
+        Posts savedPosts = postsRepository.save(Posts.builder()
+                .title("title")
+                .content("content")
+                .author("author")
+                .build());
+        String etag = mockMvc.perform(get("/api/v1/posts/" + savedPosts.getId()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        PostsUpdateRequestDto requestDto = PostsUpdateRequestDto.builder().title("title2").content("content2").build();
+
+        // when then
+        String newEtag = mockMvc.perform(put("/api/v1/posts/" + savedPosts.getId())
+                        .header("If-Match", etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(requestDto)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        assertThat(newEtag).isNotEqualTo(etag);
+
+        mockMvc.perform(put("/api/v1/posts/" + savedPosts.getId())
+                        .header("If-Match", etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(requestDto)))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void post_If_Match_목록중_하나가_현재_버전이면_수정된다() throws Exception{
+        // given
+        Posts savedPosts = postsRepository.save(Posts.builder()
+                .title("title")
+                .content("content")
+                .author("author")
+                .build());
+        String etag = mockMvc.perform(get("/api/v1/posts/" + savedPosts.getId()))
+                .andReturn().getResponse().getHeader("ETag");
+        PostsUpdateRequestDto requestDto = PostsUpdateRequestDto.builder().title("title2").content("content2").build();
+
+        // when then
+        mockMvc.perform(put("/api/v1/posts/" + savedPosts.getId())
+                        .header("If-Match", "\"" + savedPosts.getId() + "-99\", " + etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(requestDto)))
+                .andExpect(status().isOk());
+        assertThat(postsRepository.findById(savedPosts.getId()).orElseThrow().getTitle()).isEqualTo("title2");
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void post_없는_게시글에_If_Match_로_수정하면_412를_응답한다() throws Exception{
+        // given
+        PostsUpdateRequestDto requestDto = PostsUpdateRequestDto.builder().title("title2").content("content2").build();
+
+        // when then
+        mockMvc.perform(put("/api/v1/posts/" + Long.MAX_VALUE)
+                        .header("If-Match", "\"" + Long.MAX_VALUE + "-0\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(requestDto)))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(put("/api/v1/posts/" + Long.MAX_VALUE)
+                        .header("If-Match", "*")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(requestDto)))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void post_커서로_페이징된다() throws Exception{
+        // given
+        for (int i = 1; i <= 3; i++) {
+            postsRepository.save(Posts.builder()
+                    .title("title" + i)
+                    .content("content" + i)
+                    .author("author")
+                    .build());
+        }
+        List<Posts> all = postsRepository.findAll();
+        Long secondId = all.get(1).getId();
+
+        // when then
+        mockMvc.perform(get("/api/v1/posts").param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.posts.length()").value(2))
+                .andExpect(jsonPath("$.posts[0].title").value("title3"))
+                .andExpect(jsonPath("$.nextCursor").value(secondId));
+
+        mockMvc.perform(get("/api/v1/posts").param("cursor", String.valueOf(secondId)).param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.posts.length()").value(1))
+                .andExpect(jsonPath("$.posts[0].title").value("title1"))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void post_작성자별로_커서_페이징된다() throws Exception{
+        // given
+        Long first = postsRepository.save(Posts.builder().title("title1").content("content").author("author1").build()).getId();
+        postsRepository.save(Posts.builder().title("title2").content("content").author("author2").build());
+        Long third = postsRepository.save(Posts.builder().title("title3").content("content").author("author1").build()).getId();
+
+        // when then
+        mockMvc.perform(get("/api/v1/posts").param("author", "author1").param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.posts.length()").value(1))
+                .andExpect(jsonPath("$.posts[0].id").value(third))
+                .andExpect(jsonPath("$.nextCursor").value(third));
+
+        mockMvc.perform(get("/api/v1/posts").param("author", "author1").param("cursor", String.valueOf(third)).param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.posts.length()").value(1))
+                .andExpect(jsonPath("$.posts[0].id").value(first))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void post_변경이_없으면_304를_응답한다() throws Exception{
+        // given
+        Posts savedPosts = postsRepository.save(Posts.builder()
+                .title("title")
+                .content("content")
+                .author("author")
+                .build());
+
+        String etag = mockMvc.perform(get("/api/v1/posts/" + savedPosts.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        // when then
+        mockMvc.perform(get("/api/v1/posts/" + savedPosts.getId()).header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void post_fields_로_고른_필드만_응답한다() throws Exception{
+        // given
+        Posts savedPosts = postsRepository.save(Posts.builder()
+                .title("title")
+                .content("content")
+                .author("author")
+                .build());
+
+        // when then
+        mockMvc.perform(get("/api/v1/posts/" + savedPosts.getId()).param("fields", "id,title"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(savedPosts.getId()))
+                .andExpect(jsonPath("$.title").value("title"))
+                .andExpect(jsonPath("$.content").doesNotExist())
+                .andExpect(jsonPath("$.author").doesNotExist());
+
+        mockMvc.perform(get("/api/v1/posts").param("fields", "title"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.posts[0].title").value("title"))
+                .andExpect(jsonPath("$.posts[0].id").doesNotExist())
+                .andExpect(jsonPath("$.posts[0].author").doesNotExist());
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void post_CBOR_로_등록하고_조회한다() throws Exception{
+        // given
+        ObjectMapper cborMapper = new ObjectMapper(new CBORFactory());
+        PostsSaveRequestDto requestDto = PostsSaveRequestDto.builder()
+                .title("title")
+                .content("content")
+                .author("author")
+                .build();
+
+        // when
+        byte[] saved = mockMvc.perform(post("/api/v1/posts")
+                        .contentType(CBOR)
+                        .accept(CBOR)
+                        .content(cborMapper.writeValueAsBytes(requestDto)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", CBOR.toString()))
+                .andReturn().getResponse().getContentAsByteArray();
+        Long id = cborMapper.readValue(saved, Long.class);
+
+        // then
+        byte[] found = mockMvc.perform(get("/api/v1/posts/" + id).accept(CBOR))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+        JsonNode body = cborMapper.readTree(found);
+        assertThat(body.get("title").asText()).isEqualTo("title");
+        assertThat(body.get("author").asText()).isEqualTo("author");
+    }
 
+    @Test
+    @WithMockUser(roles = "USER")
+    void post_여러건이_한번에_삭제된다() throws Exception{
+        // given
+        Long id1 = postsRepository.save(Posts.builder().title("title1").content("content1").author("author").build()).getId();
+        Long id2 = postsRepository.save(Posts.builder().title("title2").content("content2").author("author").build()).getId();
+        Long id3 = postsRepository.save(Posts.builder().title("title3").content("content3").author("author").build()).getId();
+
+        // when
+        mockMvc.perform(delete("/api/v1/posts").param("ids", id1 + "," + id2 + "," + (id3 + 1000)))
+                // then
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").value(2));
 
+        List<Posts> all = postsRepository.findAll();
+        assertThat(all).hasSize(1);
+        assertThat(all.get(0).getId()).isEqualTo(id3);
+    }
 
+    @Test
+    @WithMockUser(roles = "USER")
+    void post_검색된다() throws Exception{
+        // given
+        List<PostsSaveRequestDto> requestDtos = List.of(
+                PostsSaveRequestDto.builder().title("스프링 부트 시작하기").content("content").author("author").build(),
+                PostsSaveRequestDto.builder().title("title").content("스프링 시큐리티 설정").author("author").build(),
+                PostsSaveRequestDto.builder().title("title").content("JPA 기본").author("author").build());
+        mockMvc.perform(post("/api/v1/posts/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(requestDtos)))
+                .andExpect(status().isOk());
 
+        awaitSearchIndex();
 
+        // when then
+        String nextCursor = mockMvc.perform(get("/api/v1/posts/search").param("q", "스프링").param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.posts.length()").value(1))
+                .andExpect(jsonPath("$.posts[0].title").value("스프링 부트 시작하기")) // 제목 가중치가 본문보다 높다
+                .andExpect(jsonPath("$.nextCursor").exists())
+                .andReturn().getResponse().getContentAsString();
+        nextCursor = objectMapper.readTree(nextCursor).get("nextCursor").asText();
 
+        mockMvc.perform(get("/api/v1/posts/search").param("q", "스프링").param("cursor", nextCursor).param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.posts.length()").value(1))
+                .andExpect(jsonPath("$.posts[0].title").value("title"))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
 
+    @Test
+    @WithMockUser(roles = "USER")
+    void 한_글자로_검색하면_단어_중간과_끝의_글자도_찾는다() throws Exception{
+        // given
+        mockMvc.perform(post("/api/v1/posts/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(
+                                PostsSaveRequestDto.builder().title("스프링").content("content").author("author").build(),
+                                PostsSaveRequestDto.builder().title("부트").content("content").author("author").build()))))
+                .andExpect(status().isOk());
+        awaitSearchIndex();
 
+        // when then
+        mockMvc.perform(get("/api/v1/posts/search").param("q", "프"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.posts.length()").value(1));
+        mockMvc.perform(get("/api/v1/posts/search").param("q", "링"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.posts.length()").value(1));
+    }
 
+    @Test
+    @WithMockUser(roles = "USER")
+    void post_afterId_이후부터_내보낸다() throws Exception{
+        // given
+        Long id1 = postsRepository.save(Posts.builder().title("title1").content("content1").author("author").build()).getId();
+        postsRepository.save(Posts.builder().title("title2").content("content, \"2\"").author("author").build());
+        postsRepository.save(Posts.builder().title("title3").content("content3").author("author").build());
 
+        // when
+        MvcResult ndjson = mockMvc.perform(get("/api/v1/posts/export").param("afterId", String.valueOf(id1)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MvcResult csv = mockMvc.perform(get("/api/v1/posts/export").param("format", "csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // then
+        String[] lines = mockMvc.perform(asyncDispatch(ndjson))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(objectMapper.readTree(lines[0]).get("title").asText()).isEqualTo("title2");
+        assertThat(objectMapper.readTree(lines[1]).get("title").asText()).isEqualTo("title3");
 
+        String body = mockMvc.perform(asyncDispatch(csv))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+        assertThat(body.split("\r\n")).hasSize(4);
+        assertThat(body).contains("\"content, \"\"2\"\"\"");
+    }
 
+    @Test
+    @WithMockUser(roles = "USER")
+    void post_NDJSON_을_청크로_가져온다() throws Exception{
+        // given
+        String ndjson = "{\"title\":\"title1\",\"content\":\"content1\",\"author\":\"author\"}\n"
+                + "{\"title\":\"title2\",\"content\":\"content2\",\"author\":\"author\"}\n"
+                + "not json\n"
+                + "{\"title\":\"\",\"content\":\"content4\",\"author\":\"author\"}\n"
+                + "{\"title\":\"title5\",\"content\":\"content5\",\"author\":\"author\"}\n";
 
+        // when
+        String[] lines = mockMvc.perform(post("/api/v1/posts/import")
+                        .param("chunkSize", "2")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(ndjson))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8).split("\n");
+
+        // then
+        JsonNode result = objectMapper.readTree(lines[lines.length - 1]);
+        assertThat(lines.length).isGreaterThan(1); // 청크마다 진행 상황을 응답한다
+        assertThat(result.get("done").asBoolean()).isTrue();
+        assertThat(result.get("lines").asLong()).isEqualTo(5);
+        assertThat(result.get("imported").asLong()).isEqualTo(3);
+        assertThat(result.get("failed").asLong()).isEqualTo(2);
+        assertThat(result.get("errors").get(0).get("line").asLong()).isEqualTo(3);
+        assertThat(result.get("errors").get(1).get("line").asLong()).isEqualTo(4);
+        assertThat(postsRepository.count()).isEqualTo(3);
+    }
 
+    @Test
+    @WithMockUser(roles = "USER")
+    void post_NDJSON_의_CRLF_와_버퍼보다_긴_줄을_읽는다() throws Exception{
+        // given 읽기 버퍼(8192자)를 여러번 채우는 줄과 CRLF 줄바꿈
+        String ndjson = "{\"title\":\"title1\",\"content\":\"content1\",\"author\":\"author\"}\r\n"
+                + "{\"title\":\"" + "a".repeat(70_000) + "\",\"content\":\"content2\",\"author\":\"author\"}\r\n"
+                + "{\"title\":\"title3\",\"content\":\"content3\",\"author\":\"author\"}";
 
+        // when
+        String[] lines = mockMvc.perform(post("/api/v1/posts/import")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(ndjson))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8).split("\n");
+
+        // then
+        JsonNode result = objectMapper.readTree(lines[lines.length - 1]);
+        assertThat(result.get("lines").asLong()).isEqualTo(3);
+        assertThat(result.get("imported").asLong()).isEqualTo(2);
+        assertThat(result.get("errors").get(0).get("line").asLong()).isEqualTo(2);
+        assertThat(postsRepository.findAll()).extracting(Posts::getTitle).containsExactlyInAnyOrder("title1", "title3");
+    }
 
+    /**
+     * 검색 색인은 시작 후 별도 스레드에서 만들기 때문에 준비될때까지 기다린다.
+     */
+    private void awaitSearchIndex() throws InterruptedException {
+        PostsSearchIndex postsSearchIndex = context.getBean(PostsSearchIndex.class);
+        for (int i = 0; i < 100 && !postsSearchIndex.isReady(); i++) {
+            Thread.sleep(50);
+        }
+        assertThat(postsSearchIndex.isReady()).isTrue();
+    }
+}
@@ -0,0 +1,72 @@
+package com.jojoldu.book.springboot.web.feed;
+
+import com.jojoldu.book.springboot.domain.posts.PostsRepository;
+import com.jojoldu.book.springboot.service.posts.PostsService;
+import com.jojoldu.book.springboot.web.dto.PostsSaveRequestDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+class PostsFeedControllerTest {
+
+    private static final long WAIT_MILLIS = 5_000;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PostsService postsService;
+
+    @Autowired
+    private PostsRepository postsRepository;
+
+    @AfterEach
+    public void tearDown() {
+        postsRepository.deleteAll();
+    }
+
+    @Test
+    void 등록된_게시글이_접속한_브라우저로_전달된다() throws Exception {
+        // given
+        MvcResult result = mockMvc.perform(get("/posts/events"))
+                .andExpect(status().isOk())
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // when
+        Long id = postsService.save(PostsSaveRequestDto.builder()
+                .title("실시간 제목")
+                .content("content")
+                .author("author")
+                .build());
+
+        // then
+        String body = waitFor(result, "event:created");
+        assertThat(body).contains("retry:");
+        assertThat(body).contains("\"id\":" + id);
+        assertThat(body).contains("실시간 제목");
+    }
+
+    private static String waitFor(MvcResult result, String expected) throws Exception {
+        long deadline = System.currentTimeMillis() + WAIT_MILLIS;
+        String body = result.getResponse().getContentAsString(StandardCharsets.UTF_8);
+        while (!body.contains(expected) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+            body = result.getResponse().getContentAsString(StandardCharsets.UTF_8);
+        }
+        return body;
+    }
+}